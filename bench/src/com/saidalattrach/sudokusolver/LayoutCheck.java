@@ -0,0 +1,190 @@
+package com.saidalattrach.sudokusolver;
+
+// Checks GridLayout over a range of screen sizes, portrait and landscape.
+// Inside every drawn cell, key, solve button and recycle bin, the table
+// lookup must give the same target as the geometric hit test Grid used
+// before the layout table, pixel by pixel. Every pixel of the board must
+// resolve to a cell, and touches off the screen to nothing. Exits with
+// status 2 at the first screen size that fails.
+//
+// Built and run from the project root like SolverBenchmark:
+//   javac -d bench/out $(grep -L "^import android" src/com/saidalattrach/sudokusolver/*.java) bench/src/com/saidalattrach/sudokusolver/*.java
+//   java -cp bench/out com.saidalattrach.sudokusolver.LayoutCheck
+public class LayoutCheck
+{
+	private static final int MIN_SIZE = 240;
+	private static final int MAX_SIZE = 2560;
+
+	// Odd, so cell sizes and screen sizes of both parities come up
+	private static final int SIZE_STEP = 83;
+
+	// Size of assets/recycle-bin.png
+	private static final int BIN_IMAGE_SIZE = 512;
+
+	private static long pixels = 0;
+
+	public static void main(String[] args)
+	{
+		GridLayout layout = new GridLayout();
+		String failure = null;
+		int sizes = 0;
+		int width, height;
+
+		for (width = MIN_SIZE; width <= MAX_SIZE && failure == null; width += SIZE_STEP)
+		{
+			for (height = MIN_SIZE; height <= MAX_SIZE && failure == null; height += SIZE_STEP)
+			{
+				layout.layout(width, height, BIN_IMAGE_SIZE, BIN_IMAGE_SIZE);
+				failure = check(layout);
+				sizes++;
+			}
+		}
+
+		System.out.println(sizes + " screen sizes, " + pixels + " pixels checked");
+
+		if (failure != null)
+		{
+			System.err.println(failure);
+			System.exit(2);
+		}
+	}
+
+	// Returns what went wrong, null if nothing did
+	private static String check(GridLayout layout)
+	{
+		int target, x, y, hit, expected;
+
+		for (target = 0; target < GridLayout.TARGETS; target++)
+		{
+			for (y = layout.tops[target]; y < layout.bottoms[target]; y++)
+			{
+				for (x = layout.lefts[target]; x < layout.rights[target]; x++)
+				{
+					// The middle of the pixel, as a touch would land
+					hit = layout.hit(x + 0.5f, y + 0.5f);
+					expected = geometricHit(layout, x + 0.5f, y + 0.5f);
+					pixels++;
+
+					// The bin is drawn over anything it covers
+					if (hit != expected || hit != target && hit != GridLayout.BIN)
+						return describe(layout, x, y, hit, expected);
+				}
+			}
+		}
+
+		// Touches between the cells still go to one of them
+		for (y = layout.gridY; y < layout.gridY + layout.gridSize; y++)
+		{
+			for (x = layout.gridX; x < layout.gridX + layout.gridSize; x++)
+			{
+				hit = layout.hit(x + 0.5f, y + 0.5f);
+				pixels++;
+
+				if (hit < 0 || hit >= GridLayout.KEYS && hit != GridLayout.BIN)
+					return describe(layout, x, y, hit, -1);
+			}
+		}
+
+		if (layout.hit(-1, 0) != GridLayout.NONE || layout.hit(0, -1) != GridLayout.NONE
+				|| layout.hit(layout.width, 0) != GridLayout.NONE || layout.hit(0, layout.height) != GridLayout.NONE)
+			return layout.width + "x" + layout.height + ": a touch off the screen hit a target";
+
+		return null;
+	}
+
+	private static String describe(GridLayout layout, int x, int y, int hit, int expected)
+	{
+		return String.format("%dx%d: pixel (%d, %d) looked up target %d, expected %d",
+				layout.width, layout.height, x, y, hit, expected);
+	}
+
+	// The hit test Grid did before GridLayout, on the same geometry, except
+	// that the solve button is tested where it is drawn. The old test
+	// compared a position relative to the grid with its screen position
+	private static int geometricHit(GridLayout l, float x, float y)
+	{
+		if (x >= l.binX && x < l.binX + l.binWidth && y >= l.binY && y < l.binY + l.binHeight)
+			return GridLayout.BIN;
+
+		if (x >= l.solveX && x < l.solveX + l.solveWidth && y >= l.solveY && y < l.solveY + l.solveHeight)
+			return GridLayout.SOLVE;
+
+		x -= l.gridX;
+
+		if (x < 0 || x >= l.gridSize)
+			return GridLayout.NONE;
+
+		if (y >= l.gridY && y < l.gridY + l.gridSize)
+			return intersectsCell(l, x, y - l.gridY);
+
+		if (y < l.keyPadY || y >= l.keyPadY + 2 * l.cellSize + l.blockSpacing)
+			return GridLayout.NONE;
+
+		y -= l.keyPadY;
+
+		if (y <= l.cellSize)
+		{
+			if (x >= 3 * l.cellSize + 2 * l.spacing + l.blockSpacing && x < 6 * l.cellSize + 4 * l.spacing + l.blockSpacing)
+				return GridLayout.KEYS;
+
+			return GridLayout.NONE;
+		}
+
+		if (y >= l.cellSize + l.blockSpacing)
+			return GridLayout.KEYS + intersectsNumber(l, x);
+
+		return GridLayout.NONE;
+	}
+
+	// x, y : relative to the grid
+	private static int intersectsCell(GridLayout l, float x, float y)
+	{
+		int h1 = 3 * l.cellSize + 2 * l.spacing + l.blockSpacing;
+		int h2 = l.cellSize + l.spacing;
+
+		int m = l.spacing - l.blockSpacing;
+
+		int xIndex = ((int) x + l.spacing + (((int) x + l.blockSpacing) / h1) * m) / h2;
+		int yIndex = ((int) y + l.spacing + (((int) y + l.blockSpacing) / h1) * m) / h2;
+
+		return xIndex + yIndex * 9;
+	}
+
+	// x : relative to the grid
+	private static int intersectsNumber(GridLayout l, float x)
+	{
+		int cellSize = l.cellSize;
+		int spacing = l.spacing;
+		int blockSpacing = l.blockSpacing;
+
+		if (x < 3 * cellSize + 2 * spacing)
+		{
+			if (x < cellSize)
+				return 1;
+			else if (x < 2 * cellSize + spacing)
+				return 2;
+			else
+				return 3;
+		}
+		else if (x < 6 * cellSize + 4 * spacing + blockSpacing)
+		{
+			x -= 3 * cellSize + 2 * spacing + blockSpacing;
+			if (x < cellSize)
+				return 4;
+			else if (x < 2 * cellSize + spacing)
+				return 5;
+			else
+				return 6;
+		}
+		else
+		{
+			x -= 6 * cellSize + 4 * spacing + 2 * blockSpacing;
+			if (x < cellSize)
+				return 7;
+			else if (x < 2 * cellSize + spacing)
+				return 8;
+			else
+				return 9;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,374 @@
+package com.saidalattrach.sudokusolver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+// Times the solvers on the puzzle files in bench/data, one puzzle of 81
+// characters per line with 0 or . for blanks, and # starting a comment.
+// For each file it reports the throughput and the latency percentiles of
+// every engine, with SudokuSolver also run with all its techniques and
+// behind a warm SolutionCache, then the time SudokuSolver spends in each
+// phase and the average shape of its search with and without the techniques.
+// Last it checks that a warm solver allocates nothing while solving, and
+// exits with status 2 if one does.
+//
+// Built and run from the project root on a desktop JVM:
+//   javac -d bench/out $(grep -L "^import android" src/com/saidalattrach/sudokusolver/*.java) bench/src/com/saidalattrach/sudokusolver/*.java
+//   java -cp bench/out com.saidalattrach.sudokusolver.SolverBenchmark [data directory]
+public class SolverBenchmark
+{
+	private static final long WARMUP_NANOS = 2000000000L;
+	private static final long MEASURE_NANOS = 5000000000L;
+
+	// Phases timed on their own, in the order the solver runs them
+	private static final int INITIALIZE_PM = 0;
+	private static final int SIMPLE_ELIMINATE = 1;
+	private static final int LESS_SIMPLE_ELIMINATE = 2;
+	private static final int CHECK_AND_BRANCH = 3;
+	private static final String[] PHASE_NAMES = { "initializePM", "simpleEliminate", "lessSimpleEliminate", "checkAndBranch" };
+
+	// Passes over a file before the allocations of a solver are counted
+	private static final int ALLOCATION_WARMUP_PASSES = 20;
+
+	// Samples of the current measurement, in nanoseconds
+	private static long[] samples = new long[1 << 16];
+	private static int sampleCount;
+
+	// Set when a solver allocated during a solve
+	private static boolean allocated = false;
+
+	public static void main(String[] args) throws IOException
+	{
+		File dir = new File(args.length > 0 ? args[0] : "bench/data");
+		File[] files = dir.listFiles();
+		int i, j;
+
+		if (files == null)
+		{
+			System.err.println("No puzzle directory at " + dir);
+			System.exit(1);
+		}
+
+		Arrays.sort(files);
+
+		for (i = 0; i < files.length; i++)
+		{
+			if (!files[i].getName().endsWith(".txt"))
+				continue;
+
+			int[][] puzzles = loadPuzzles(files[i]);
+
+			System.out.println(files[i].getName() + ": " + puzzles.length + " puzzles");
+			System.out.println(String.format("  %-20s %12s %10s %10s %10s %10s %10s",
+					"engine", "puzzles/s", "mean us", "p50 us", "p90 us", "p99 us", "max us"));
+
+			SolverType[] types = SolverType.values();
+
+			for (j = 0; j < types.length; j++)
+			{
+				benchmarkSolve(types[j].create(), puzzles);
+				report(types[j].toString(), true);
+			}
+
+			SudokuSolver deductive = new SudokuSolver();
+			deductive.setTechniques(EnumSet.allOf(Technique.class));
+			benchmarkSolve(deductive, puzzles);
+			report("ALL_TECHNIQUES", true);
+
+			// Every solve after the first pass is a hit
+			benchmarkSolve(new CachingSolver(new SolutionCache()), puzzles);
+			report("CACHE_HITS", true);
+
+			for (j = 0; j < PHASE_NAMES.length; j++)
+			{
+				benchmarkPhase(j, puzzles);
+				report(PHASE_NAMES[j], false);
+			}
+
+			reportStats(puzzles, EnumSet.noneOf(Technique.class));
+			reportStats(puzzles, EnumSet.allOf(Technique.class));
+
+			System.out.print("  bytes allocated per solve:");
+
+			for (j = 0; j < types.length; j++)
+				reportAllocations(types[j].toString(), types[j].create(), puzzles, null);
+
+			reportAllocations("ALL_TECHNIQUES", deductive, puzzles, null);
+			reportAllocations("CACHE_HITS", new CachingSolver(new SolutionCache()), puzzles, null);
+			reportAllocations("BUDGETED", SolverType.BACKTRACKING.create(), puzzles,
+					new SolveBudget(MEASURE_NANOS, 0, new CancellationToken()));
+
+			System.out.println();
+			System.out.println();
+		}
+
+		if (allocated)
+		{
+			System.err.println("A solver allocated during a steady-state solve");
+			System.exit(2);
+		}
+	}
+
+	static int[][] loadPuzzles(File file) throws IOException
+	{
+		List<int[]> puzzles = new ArrayList<int[]>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		String line;
+		int i;
+		char c;
+
+		try
+		{
+			while ((line = reader.readLine()) != null)
+			{
+				if (line.length() < 81 || line.startsWith("#"))
+					continue;
+
+				int[] grid = new int[81];
+
+				for (i = 0; i < 81; i++)
+				{
+					c = line.charAt(i);
+					grid[i] = c >= '1' && c <= '9' ? c - '0' : 0;
+				}
+
+				puzzles.add(grid);
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+
+		return puzzles.toArray(new int[puzzles.size()][]);
+	}
+
+	// Solves the puzzles over and over, first to warm up the JIT and then
+	// recording the time of every solve
+	private static void benchmarkSolve(Solver solver, int[][] puzzles)
+	{
+		int[] grid = new int[81];
+		long start, before, after;
+		int i;
+
+		solver.setGrid(grid);
+
+		start = System.nanoTime();
+		sampleCount = 0;
+
+		while (System.nanoTime() - start < WARMUP_NANOS + MEASURE_NANOS)
+		{
+			for (i = 0; i < puzzles.length; i++)
+			{
+				System.arraycopy(puzzles[i], 0, grid, 0, 81);
+
+				before = System.nanoTime();
+				solver.solve();
+				after = System.nanoTime();
+
+				if (after - start >= WARMUP_NANOS)
+					addSample(after - before);
+			}
+		}
+	}
+
+	// Times one phase of SudokuSolver, with the phases before it run untimed
+	// so that it starts from the state it would see in a real solve
+	private static void benchmarkPhase(int phase, int[][] puzzles)
+	{
+		SudokuSolver solver = new SudokuSolver();
+		int[] grid = new int[81];
+		long start, before, after;
+		int i;
+
+		solver.setGrid(grid);
+
+		start = System.nanoTime();
+		sampleCount = 0;
+
+		while (System.nanoTime() - start < WARMUP_NANOS + MEASURE_NANOS)
+		{
+			for (i = 0; i < puzzles.length; i++)
+			{
+				System.arraycopy(puzzles[i], 0, grid, 0, 81);
+
+				if (phase == CHECK_AND_BRANCH)
+				{
+					if (!solver.prepare(1))
+						continue;
+
+					before = System.nanoTime();
+					solver.checkAndBranch();
+				}
+				else if (phase == INITIALIZE_PM)
+				{
+					solver.validateGrid();
+
+					before = System.nanoTime();
+					solver.initializePM();
+				}
+				else if (phase == SIMPLE_ELIMINATE)
+				{
+					solver.validateGrid();
+					solver.initializePM();
+
+					before = System.nanoTime();
+					solver.simpleEliminate();
+				}
+				else
+				{
+					solver.validateGrid();
+					solver.initializePM();
+
+					if (solver.simpleEliminate() < 0)
+						continue;
+
+					before = System.nanoTime();
+					solver.lessSimpleEliminate();
+				}
+
+				after = System.nanoTime();
+
+				if (after - start >= WARMUP_NANOS)
+					addSample(after - before);
+			}
+		}
+	}
+
+	// Solves every puzzle once with statistics on, and prints the averages
+	private static void reportStats(int[][] puzzles, EnumSet<Technique> techniques)
+	{
+		SudokuSolver solver = new SudokuSolver();
+		SolveStats stats = new SolveStats();
+		Technique[] all = Technique.values();
+		long[] eliminations = new long[all.length];
+		long[] techniqueNanos = new long[all.length];
+		int[] grid = new int[81];
+		long nodes = 0, backtracks = 0, depth = 0, nakedSingles = 0, hiddenSingles = 0;
+		int i, j;
+
+		solver.setGrid(grid);
+		solver.setStats(stats);
+		solver.setTechniques(techniques);
+
+		for (i = 0; i < puzzles.length; i++)
+		{
+			System.arraycopy(puzzles[i], 0, grid, 0, 81);
+			solver.solve();
+
+			nodes += stats.getNodes();
+			backtracks += stats.getBacktracks();
+			depth += stats.getMaxDepth();
+			nakedSingles += stats.getNakedSingles();
+			hiddenSingles += stats.getHiddenSingles();
+
+			for (j = 0; j < all.length; j++)
+			{
+				eliminations[j] += stats.getEliminations(all[j]);
+				techniqueNanos[j] += stats.getTechniqueNanos(all[j]);
+			}
+		}
+
+		System.out.println(String.format("  %s techniques, per puzzle: %.1f nodes, %.1f backtracks, %.1f max depth, "
+				+ "%.1f naked singles, %.1f hidden singles",
+				techniques.isEmpty() ? "no" : "all",
+				(double) nodes / puzzles.length,
+				(double) backtracks / puzzles.length,
+				(double) depth / puzzles.length,
+				(double) nakedSingles / puzzles.length,
+				(double) hiddenSingles / puzzles.length));
+
+		for (j = 0; j < all.length; j++)
+			if (techniques.contains(all[j]))
+				System.out.println(String.format("    %-16s %8.1f eliminations %10.2f us",
+						all[j], (double) eliminations[j] / puzzles.length, techniqueNanos[j] / 1e3 / puzzles.length));
+	}
+
+	// Counts the bytes the current thread allocates while a warm solver goes
+	// through the puzzles
+	private static void reportAllocations(String name, Solver solver, int[][] puzzles, SolveBudget budget)
+	{
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		int[] grid = new int[81];
+		long before, overhead, bytes;
+		int pass;
+
+		solver.setGrid(grid);
+
+		for (pass = 0; pass <= ALLOCATION_WARMUP_PASSES; pass++)
+			solvePass(solver, puzzles, grid, budget);
+
+		// What reading the counter allocates itself
+		before = threads.getThreadAllocatedBytes(thread);
+		overhead = threads.getThreadAllocatedBytes(thread) - before;
+
+		before = threads.getThreadAllocatedBytes(thread);
+		solvePass(solver, puzzles, grid, budget);
+		bytes = threads.getThreadAllocatedBytes(thread) - before - overhead;
+
+		if (bytes > 0)
+			allocated = true;
+
+		System.out.print(String.format(" %s %.1f", name, (double) bytes / puzzles.length));
+	}
+
+	private static void solvePass(Solver solver, int[][] puzzles, int[] grid, SolveBudget budget)
+	{
+		int i;
+
+		for (i = 0; i < puzzles.length; i++)
+		{
+			System.arraycopy(puzzles[i], 0, grid, 0, 81);
+
+			if (budget == null)
+				solver.solve();
+			else
+				solver.solve(budget);
+		}
+	}
+
+	private static void addSample(long nanos)
+	{
+		if (sampleCount == samples.length)
+			samples = Arrays.copyOf(samples, 2 * samples.length);
+
+		samples[sampleCount] = nanos;
+		sampleCount++;
+	}
+
+	private static void report(String name, boolean throughput)
+	{
+		long total = 0;
+		int i;
+
+		if (sampleCount == 0)
+			return;
+
+		Arrays.sort(samples, 0, sampleCount);
+
+		for (i = 0; i < sampleCount; i++)
+			total += samples[i];
+
+		System.out.println(String.format("  %-20s %12s %10.2f %10.2f %10.2f %10.2f %10.2f",
+				name,
+				throughput ? String.format("%.0f", sampleCount * 1e9 / total) : "-",
+				total / 1e3 / sampleCount,
+				percentile(0.50) / 1e3,
+				percentile(0.90) / 1e3,
+				percentile(0.99) / 1e3,
+				samples[sampleCount - 1] / 1e3));
+	}
+
+	private static long percentile(double p)
+	{
+		return samples[Math.min(sampleCount - 1, (int) (p * sampleCount))];
+	}
+}
\ No newline at end of file
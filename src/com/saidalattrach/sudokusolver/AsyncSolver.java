@@ -0,0 +1,77 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+// Solves grids on a background thread, one at a time, so the calling thread
+// can keep drawing and taking input. A solve is cancelled through the token
+// of its budget and its progress is reported to the budget's listener
+public class AsyncSolver
+{
+	private ExecutorService executor;
+
+	// Only used on the executor's thread
+	private Solver solver;
+
+	public AsyncSolver()
+	{
+		this(SolverType.BACKTRACKING);
+	}
+
+	public AsyncSolver(SolverType solverType)
+	{
+		solver = solverType.create();
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory()
+		{
+			public Thread newThread(Runnable runnable)
+			{
+				// Never keeps the process alive on its own
+				Thread thread = new Thread(runnable, "AsyncSolver");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	// Solves the grid in place. It must be left alone until the future is
+	// done, and holds the solution only if the result is SOLVED. A solve
+	// queued behind a cancelled one starts once that one notices
+	public Future<SolveResult> solve(int[] grid, SolveBudget budget)
+	{
+		return solve(grid, budget, null);
+	}
+
+	// done : run once the future is done, may be null. That is on the
+	// solver's thread, except after Future.cancel, when it runs on the
+	// thread that cancelled
+	public Future<SolveResult> solve(final int[] grid, final SolveBudget budget, final Runnable done)
+	{
+		FutureTask<SolveResult> task = new FutureTask<SolveResult>(new Callable<SolveResult>()
+		{
+			public SolveResult call()
+			{
+				solver.setGrid(grid);
+				return solver.solve(budget);
+			}
+		})
+		{
+			protected void done()
+			{
+				if (done != null)
+					done.run();
+			}
+		};
+
+		executor.execute(task);
+		return task;
+	}
+
+	public void shutdown()
+	{
+		executor.shutdown();
+	}
+}
\ No newline at end of file
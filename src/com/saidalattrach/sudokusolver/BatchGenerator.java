@@ -0,0 +1,86 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Generates many puzzles in parallel on a fixed pool of threads, handed out
+// in small chunks since puzzles take very different times to generate.
+// Every thread keeps one generator. Puzzle i of a series gets its own seed
+// derived from the series seed, so a series is the same whatever the
+// thread count
+public class BatchGenerator
+{
+	// Puzzles generated by one task
+	private static final int CHUNK_SIZE = 4;
+
+	private WorkerPool pool;
+	private ThreadLocal<PuzzleGenerator> generators;
+
+	public BatchGenerator()
+	{
+		this(3, PuzzleGenerator.Symmetry.NONE, 0, Runtime.getRuntime().availableProcessors());
+	}
+
+	// See PuzzleGenerator for the symmetry and the target clue count
+	public BatchGenerator(final int boxSize, final PuzzleGenerator.Symmetry symmetry, final int targetClues,
+			int threads)
+	{
+		pool = new WorkerPool("BatchGenerator", threads);
+		generators = new ThreadLocal<PuzzleGenerator>()
+		{
+			protected PuzzleGenerator initialValue()
+			{
+				PuzzleGenerator generator = new PuzzleGenerator(boxSize);
+
+				generator.setSymmetry(symmetry);
+				generator.setTargetClues(targetClues);
+
+				return generator;
+			}
+		};
+	}
+
+	public int[][] generate(int count, long seed)
+	{
+		int[][] puzzles = new int[count][];
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		int i;
+
+		for (i = 0; i < count; i += CHUNK_SIZE)
+			tasks.add(new GenerateTask(puzzles, seed, i, Math.min(i + CHUNK_SIZE, count)));
+
+		pool.runAll(tasks);
+
+		return puzzles;
+	}
+
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+
+	private class GenerateTask implements Runnable
+	{
+		private int[][] puzzles;
+		private long seed;
+		private int from;
+		private int to;
+
+		GenerateTask(int[][] puzzles, long seed, int from, int to)
+		{
+			this.puzzles = puzzles;
+			this.seed = seed;
+			this.from = from;
+			this.to = to;
+		}
+
+		public void run()
+		{
+			PuzzleGenerator generator = generators.get();
+			int i;
+
+			for (i = from; i < to; i++)
+				puzzles[i] = generator.generate(PuzzleGenerator.seedFor(seed, i));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Solves many grids in parallel on a fixed pool of threads. The grids are
+// handed out in chunks, a thread taking the next chunk as soon as it is done
+// with one. Every thread keeps one solver and reuses it for all its grids
+public class BatchSolver
+{
+	// Grids solved by one task
+	private static final int CHUNK_SIZE = 32;
+
+	private WorkerPool pool;
+	private ThreadLocal<Solver> solvers;
+
+	public BatchSolver()
+	{
+		this(SolverType.BACKTRACKING, Runtime.getRuntime().availableProcessors());
+	}
+
+	public BatchSolver(SolverType solverType, int threads)
+	{
+		this(solverType, 3, threads);
+	}
+
+	// Every puzzle of a batch must have boxSize x boxSize boxes
+	public BatchSolver(final SolverType solverType, final int boxSize, int threads)
+	{
+		pool = new WorkerPool("BatchSolver", threads);
+		solvers = new ThreadLocal<Solver>()
+		{
+			protected Solver initialValue()
+			{
+				return solverType.create(boxSize);
+			}
+		};
+	}
+
+	public Result solve(Collection<int[]> puzzles)
+	{
+		return solve(puzzles.toArray(new int[puzzles.size()][]));
+	}
+
+	// The puzzles are copied, never modified. Results come back in the same
+	// order as the puzzles
+	public Result solve(int[][] puzzles)
+	{
+		Result result = new Result(puzzles.length);
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		int i;
+
+		for (i = 0; i < puzzles.length; i++)
+			result.grids[i] = puzzles[i].clone();
+
+		for (i = 0; i < puzzles.length; i += CHUNK_SIZE)
+			tasks.add(new SolveTask(result, i, Math.min(i + CHUNK_SIZE, puzzles.length)));
+
+		pool.runAll(tasks);
+
+		return result;
+	}
+
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+
+	public static class Result
+	{
+		private int[][] grids;
+		private boolean[] solved;
+
+		private Result(int size)
+		{
+			grids = new int[size][];
+			solved = new boolean[size];
+		}
+
+		public int size()
+		{
+			return grids.length;
+		}
+
+		// The solved grid, or the puzzle as far as it got if it has no solution
+		public int[] getGrid(int index)
+		{
+			return grids[index];
+		}
+
+		public boolean isSolved(int index)
+		{
+			return solved[index];
+		}
+
+		public int getSolvedCount()
+		{
+			int count = 0;
+			int i;
+
+			for (i = 0; i < solved.length; i++)
+				if (solved[i])
+					count++;
+
+			return count;
+		}
+	}
+
+	private class SolveTask implements Runnable
+	{
+		private Result result;
+		private int from;
+		private int to;
+
+		SolveTask(Result result, int from, int to)
+		{
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		public void run()
+		{
+			Solver solver = solvers.get();
+			int i;
+
+			for (i = from; i < to; i++)
+			{
+				solver.setGrid(result.grids[i]);
+				result.solved[i] = solver.solve();
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,471 @@
+package com.saidalattrach.sudokusolver;
+
+// Solves 9x9 grids on bitboards: for every number, one 81-bit set of the
+// cells it can still go in, held in two longs (cells 0 to 63, then 64 to 80).
+// Placing a number clears it from all its peers with two mask operations,
+// naked singles are found on the whole board at once by counting candidates
+// across the nine sets bit by bit, and hidden singles are found by masking a
+// set with a unit and counting the bits left. Same search as SudokuSolver:
+// naked and hidden singles, then a guess on a cell with the fewest candidates
+public class BitboardSolver implements Solver
+{
+	// Longs in the state of a search node: two per number, then two for the
+	// filled cells. A filled cell keeps the bit of its number and loses the others
+	private static final int FILLED = 2 * 9;
+	private static final int STATE_SIZE = FILLED + 2;
+
+	// Valid bits of each half
+	private static final long LOW_CELLS = -1L;
+	private static final long HIGH_CELLS = (1L << (81 - 64)) - 1;
+
+	// Peers of each cell and cells of each unit, as bitboards
+	private static final long[] PEERS_LOW = new long[81];
+	private static final long[] PEERS_HIGH = new long[81];
+	private static final long[] UNIT_LOW = new long[27];
+	private static final long[] UNIT_HIGH = new long[27];
+
+	static
+	{
+		BoardGeometry geometry = BoardGeometry.CLASSIC;
+		int i, j;
+
+		for (i = 0; i < 81; i++)
+		{
+			for (j = 0; j < geometry.peers[i].length; j++)
+			{
+				if (geometry.peers[i][j] < 64)
+					PEERS_LOW[i] |= 1L << geometry.peers[i][j];
+				else
+					PEERS_HIGH[i] |= 1L << geometry.peers[i][j];
+			}
+		}
+
+		for (i = 0; i < 27; i++)
+		{
+			for (j = 0; j < 9; j++)
+			{
+				if (geometry.unitCells[i][j] < 64)
+					UNIT_LOW[i] |= 1L << geometry.unitCells[i][j];
+				else
+					UNIT_HIGH[i] |= 1L << geometry.unitCells[i][j];
+			}
+		}
+	}
+
+	private int[] grid;
+
+	// One state per search depth, a child starts as a copy of its parent.
+	// top is the offset of the current one
+	private long[] states = new long[STATE_SIZE * (81 + 1)];
+	private int top = 0;
+
+	// The search stops once it has found this many solutions
+	private int solutionLimit = 1;
+	private int solutionCount = 0;
+
+	// Only spent during a solve with a SolveBudget
+	private BudgetMeter meter = new BudgetMeter();
+	private boolean budgeted = false;
+	private int[] firstSolution = new int[81];
+
+	public BitboardSolver()
+	{
+		this(new int[9 * 9]);
+	}
+
+	public BitboardSolver(int[] grid)
+	{
+		this.grid = grid;
+	}
+
+	public int[] getGrid()
+	{
+		return grid;
+	}
+
+	public void setGrid(int[] grid)
+	{
+		this.grid = grid;
+	}
+
+	public boolean solve()
+	{
+		return countSolutions(1) == 1;
+	}
+
+	public SolveResult solve(SolveBudget budget)
+	{
+		int count;
+
+		meter.start(budget);
+		budgeted = true;
+		count = countSolutions(1);
+		budgeted = false;
+
+		if (count == 1)
+			return SolveResult.SOLVED;
+
+		return meter.isExhausted() ? SolveResult.BUDGET_EXHAUSTED : SolveResult.UNSOLVABLE;
+	}
+
+	// Same contract as SudokuSolver.countSolutions
+	public int countSolutions(int limit)
+	{
+		solutionLimit = limit;
+		solutionCount = 0;
+		top = 0;
+
+		if (!validateGrid())
+			return 0;
+
+		placeGivens();
+
+		if (!propagate())
+			return 0;
+
+		branch();
+
+		if (solutionCount > 0)
+			System.arraycopy(firstSolution, 0, grid, 0, 81);
+
+		return solutionCount;
+	}
+
+	// Checks that every number is in range and appears at most once per unit
+	private boolean validateGrid()
+	{
+		BoardGeometry geometry = BoardGeometry.CLASSIC;
+		int i, j;
+		int number;
+		int seen;
+
+		if (grid.length != 81)
+			return false;
+
+		for (i = 0; i < 81; i++)
+			if (grid[i] < 0 || grid[i] > 9)
+				return false;
+
+		for (i = 0; i < 27; i++)
+		{
+			seen = 0;
+
+			for (j = 0; j < 9; j++)
+			{
+				number = grid[geometry.unitCells[i][j]];
+
+				if (number != 0)
+				{
+					if ((seen & (1 << number)) != 0)
+						return false;
+
+					seen |= 1 << number;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	// Starts from a board where everything is possible and places the givens
+	private void placeGivens()
+	{
+		int i;
+
+		for (i = 0; i < FILLED; i += 2)
+		{
+			states[i] = LOW_CELLS;
+			states[i + 1] = HIGH_CELLS;
+		}
+
+		states[FILLED] = 0;
+		states[FILLED + 1] = 0;
+
+		for (i = 0; i < 81; i++)
+			if (grid[i] != 0)
+				placeNumber(i, grid[i] - 1);
+	}
+
+	// number : from 0 to 8
+	private void placeNumber(int index, int number)
+	{
+		long[] s = states;
+		int plane = top + 2 * number;
+		int half = index >>> 6;
+
+		// Shifts only use the low six bits, so this is the bit of the cell
+		// in whichever half it is in
+		long bit = 1L << index;
+		int i;
+
+		for (i = top + half; i < top + FILLED; i += 2)
+			s[i] &= ~bit;
+
+		s[plane] &= ~PEERS_LOW[index];
+		s[plane + 1] &= ~PEERS_HIGH[index];
+		s[plane + half] |= bit;
+		s[top + FILLED + half] |= bit;
+	}
+
+	// Fills naked and hidden singles until there are none left.
+	// Returns false if the grid turned out to be unsolvable
+	private boolean propagate()
+	{
+		int placed;
+
+		do
+		{
+			placed = placeNakedSingles();
+
+			if (placed == 0)
+				placed = placeHiddenSingles();
+
+			if (placed < 0)
+				return false;
+		}
+		while (placed > 0);
+
+		return true;
+	}
+
+	// Counts the candidates of all cells at once, saturating at two.
+	// Returns the number of cells filled, or -1 if some cell has no candidate
+	private int placeNakedSingles()
+	{
+		long[] s = states;
+		long onceLow = 0, twiceLow = 0, onceHigh = 0, twiceHigh = 0;
+		long emptyLow = ~s[top + FILLED] & LOW_CELLS;
+		long emptyHigh = ~s[top + FILLED + 1] & HIGH_CELLS;
+		long singles;
+		int counter = 0;
+		int index;
+		int i;
+
+		for (i = top; i < top + FILLED; i += 2)
+		{
+			twiceLow |= onceLow & s[i];
+			onceLow |= s[i];
+			twiceHigh |= onceHigh & s[i + 1];
+			onceHigh |= s[i + 1];
+		}
+
+		if ((emptyLow & ~onceLow) != 0 || (emptyHigh & ~onceHigh) != 0)
+			return -1;
+
+		singles = emptyLow & ~twiceLow;
+
+		while (singles != 0)
+		{
+			index = Long.numberOfTrailingZeros(singles);
+			singles &= singles - 1;
+
+			if (!placeSingle(index))
+				return -1;
+			counter++;
+		}
+
+		singles = emptyHigh & ~twiceHigh;
+
+		while (singles != 0)
+		{
+			index = 64 + Long.numberOfTrailingZeros(singles);
+			singles &= singles - 1;
+
+			if (!placeSingle(index))
+				return -1;
+			counter++;
+		}
+
+		return counter;
+	}
+
+	// Places the one number left in a cell. Returns false if an earlier
+	// single in the same unit took it
+	private boolean placeSingle(int index)
+	{
+		int half = index >>> 6;
+		long bit = 1L << index;
+		int number;
+
+		for (number = 0; number < 9; number++)
+		{
+			if ((states[top + 2 * number + half] & bit) != 0)
+			{
+				placeNumber(index, number);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// Places every number that fits in only one cell of a unit.
+	// Returns the number of cells filled, or -1 if a number has nowhere to go
+	private int placeHiddenSingles()
+	{
+		long[] s = states;
+		long low, high;
+		int counter = 0;
+		int plane;
+		int number;
+		int unit;
+
+		for (number = 0; number < 9; number++)
+		{
+			plane = top + 2 * number;
+
+			for (unit = 0; unit < 27; unit++)
+			{
+				low = s[plane] & UNIT_LOW[unit];
+				high = s[plane + 1] & UNIT_HIGH[unit];
+
+				// Already placed in this unit
+				if (((low & s[top + FILLED]) | (high & s[top + FILLED + 1])) != 0)
+					continue;
+
+				if ((low | high) == 0)
+					return -1;
+
+				if (low == 0 && (high & (high - 1)) == 0)
+				{
+					placeNumber(64 + Long.numberOfTrailingZeros(high), number);
+					counter++;
+				}
+				else if (high == 0 && (low & (low - 1)) == 0)
+				{
+					placeNumber(Long.numberOfTrailingZeros(low), number);
+					counter++;
+				}
+			}
+		}
+
+		return counter;
+	}
+
+	// Finds the empty cell with the fewest candidates, the first one if there
+	// are several. Returns -1 if all cells are filled
+	private int leastPossibsCell()
+	{
+		long[] s = states;
+		long onceLow = 0, twiceLow = 0, moreLow = 0;
+		long onceHigh = 0, twiceHigh = 0, moreHigh = 0;
+		long emptyLow = ~s[top + FILLED] & LOW_CELLS;
+		long emptyHigh = ~s[top + FILLED + 1] & HIGH_CELLS;
+		long pairs;
+		int leastPossibs = 10;
+		int leastPossibsIndex = -1;
+		int possibs;
+		int index;
+		int i;
+
+		if ((emptyLow | emptyHigh) == 0)
+			return -1;
+
+		// After propagation no empty cell has fewer than two candidates, so
+		// a cell with exactly two is the answer
+		for (i = top; i < top + FILLED; i += 2)
+		{
+			moreLow |= twiceLow & s[i];
+			twiceLow |= onceLow & s[i];
+			onceLow |= s[i];
+			moreHigh |= twiceHigh & s[i + 1];
+			twiceHigh |= onceHigh & s[i + 1];
+			onceHigh |= s[i + 1];
+		}
+
+		pairs = emptyLow & twiceLow & ~moreLow;
+		if (pairs != 0)
+			return Long.numberOfTrailingZeros(pairs);
+
+		pairs = emptyHigh & twiceHigh & ~moreHigh;
+		if (pairs != 0)
+			return 64 + Long.numberOfTrailingZeros(pairs);
+
+		for (index = 0; index < 81; index++)
+		{
+			if (!isEmpty(index))
+				continue;
+
+			possibs = Integer.bitCount(candidatesOf(index));
+
+			if (possibs < leastPossibs)
+			{
+				leastPossibs = possibs;
+				leastPossibsIndex = index;
+			}
+		}
+
+		return leastPossibsIndex;
+	}
+
+	private boolean isEmpty(int index)
+	{
+		return (states[top + FILLED + (index >>> 6)] & (1L << index)) == 0;
+	}
+
+	// Gathers the candidates of a cell into a mask, bit n for number n + 1
+	private int candidatesOf(int index)
+	{
+		int half = top + (index >>> 6);
+		long bit = 1L << index;
+		int mask = 0;
+		int number;
+
+		for (number = 0; number < 9; number++)
+			if ((states[half + 2 * number] & bit) != 0)
+				mask |= 1 << number;
+
+		return mask;
+	}
+
+	// Returns true when the search should stop because the solution limit
+	// was reached or the budget ran out
+	private boolean branch()
+	{
+		if (budgeted && !meter.spend())
+			return true;
+
+		int leastPossibsIndex = leastPossibsCell();
+
+		// This means that all cells are filled and puzzle is solved
+		if (leastPossibsIndex == -1)
+			return addSolution();
+
+		int possibs = candidatesOf(leastPossibsIndex);
+		int parent = top;
+
+		while (possibs != 0)
+		{
+			int number = Integer.numberOfTrailingZeros(possibs);
+			possibs &= possibs - 1;
+
+			// The child starts from a copy of this node's propagated state
+			System.arraycopy(states, parent, states, parent + STATE_SIZE, STATE_SIZE);
+			top = parent + STATE_SIZE;
+
+			placeNumber(leastPossibsIndex, number);
+
+			boolean stopped = propagate() && branch();
+			top = parent;
+
+			if (stopped)
+				return true;
+		}
+
+		return false;
+	}
+
+	// Returns true once the limit is reached
+	private boolean addSolution()
+	{
+		int i;
+
+		solutionCount++;
+
+		if (solutionCount == 1)
+			for (i = 0; i < 81; i++)
+				firstSolution[i] = Integer.numberOfTrailingZeros(candidatesOf(i)) + 1;
+
+		return solutionCount >= solutionLimit;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.saidalattrach.sudokusolver;
+
+// Cell and unit tables of a board made of boxSize x boxSize boxes, so with
+// boxSize * boxSize numbers and as many cells on a side. Cells are numbered
+// in row order. Units 0 to size - 1 are the rows, then come the columns and
+// then the boxes
+class BoardGeometry
+{
+	// Candidate masks are ints, so at most 31 numbers
+	static final int MAX_BOX_SIZE = 5;
+
+	// The 9x9 tables are built once and shared by every solver
+	static final BoardGeometry CLASSIC = new BoardGeometry(3);
+
+	private static final BoardGeometry[] geometries = new BoardGeometry[MAX_BOX_SIZE + 1];
+
+	final int boxSize;
+	final int size;
+	final int cells;
+	final int units;
+	final int allCandidates;
+
+	final int[][] unitCells;
+	final int[][] cellUnits;
+	final int[][] peers;
+
+	static BoardGeometry get(int boxSize)
+	{
+		if (boxSize == 3)
+			return CLASSIC;
+
+		if (boxSize < 1 || boxSize > MAX_BOX_SIZE)
+			throw new IllegalArgumentException("Unsupported box size: " + boxSize);
+
+		synchronized (geometries)
+		{
+			if (geometries[boxSize] == null)
+				geometries[boxSize] = new BoardGeometry(boxSize);
+
+			return geometries[boxSize];
+		}
+	}
+
+	private BoardGeometry(int boxSize)
+	{
+		int i, j, k;
+		int row, col, box;
+
+		this.boxSize = boxSize;
+		size = boxSize * boxSize;
+		cells = size * size;
+		units = 3 * size;
+		allCandidates = (1 << size) - 1;
+
+		unitCells = new int[units][size];
+		cellUnits = new int[cells][3];
+		peers = new int[cells][3 * size - 2 * boxSize - 1];
+
+		for (i = 0; i < cells; i++)
+		{
+			row = i / size;
+			col = i % size;
+			box = (row / boxSize) * boxSize + col / boxSize;
+
+			unitCells[row][col] = i;
+			unitCells[size + col][row] = i;
+			unitCells[2 * size + box][(row % boxSize) * boxSize + col % boxSize] = i;
+
+			cellUnits[i][0] = row;
+			cellUnits[i][1] = size + col;
+			cellUnits[i][2] = 2 * size + box;
+		}
+
+		for (i = 0; i < cells; i++)
+		{
+			k = 0;
+
+			for (j = 0; j < cells; j++)
+			{
+				if (j != i && (cellUnits[j][0] == cellUnits[i][0]
+						|| cellUnits[j][1] == cellUnits[i][1]
+						|| cellUnits[j][2] == cellUnits[i][2]))
+					peers[i][k++] = j;
+			}
+		}
+	}
+}
\ No newline at end of file
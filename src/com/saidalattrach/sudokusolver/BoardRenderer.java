@@ -0,0 +1,176 @@
+package com.saidalattrach.sudokusolver;
+
+// Remembers what every cell and the solve button showed in the last frame,
+// and collects the ones that changed into a dirty rectangle. A frame then
+// only redraws that rectangle: the static layer under it, and whatever
+// cell or button overlaps it. The dirty area is a single rectangle since
+// that is what a surface can be locked with
+public class BoardRenderer
+{
+	private static final int SELECTED = 1;
+	private static final int CONFLICT = 2;
+	private static final int SOLVED = 4;
+
+	private int cells;
+	private int width;
+	private int height;
+
+	private int[] cellLefts;
+	private int[] cellTops;
+	private int cellSize;
+
+	private int solveLeft;
+	private int solveTop;
+	private int solveRight;
+	private int solveBottom;
+
+	// State shown by each cell, flags are a mix of the constants above
+	private int[] numbers;
+	private int[] flags;
+	private int solveStep = -1;
+
+	// Empty when left >= right
+	private int dirtyLeft = 0;
+	private int dirtyTop = 0;
+	private int dirtyRight = 0;
+	private int dirtyBottom = 0;
+
+	public BoardRenderer(int cells)
+	{
+		this.cells = cells;
+
+		cellLefts = new int[cells];
+		cellTops = new int[cells];
+		numbers = new int[cells];
+		flags = new int[cells];
+	}
+
+	// Takes the screen size and where every cell and the solve button are,
+	// then marks the whole screen dirty
+	public void setLayout(int width, int height, int[] cellLefts, int[] cellTops, int cellSize,
+			int solveLeft, int solveTop, int solveRight, int solveBottom)
+	{
+		this.width = width;
+		this.height = height;
+
+		System.arraycopy(cellLefts, 0, this.cellLefts, 0, cells);
+		System.arraycopy(cellTops, 0, this.cellTops, 0, cells);
+		this.cellSize = cellSize;
+
+		this.solveLeft = solveLeft;
+		this.solveTop = solveTop;
+		this.solveRight = solveRight;
+		this.solveBottom = solveBottom;
+
+		invalidateAll();
+	}
+
+	// Marks the cell dirty if it shows something else than last time
+	public void setCell(int cell, int number, boolean selected, boolean conflict, boolean solved)
+	{
+		int cellFlags = (selected ? SELECTED : 0) | (conflict ? CONFLICT : 0) | (solved ? SOLVED : 0);
+
+		if (numbers[cell] == number && flags[cell] == cellFlags)
+			return;
+
+		numbers[cell] = number;
+		flags[cell] = cellFlags;
+
+		invalidate(cellLefts[cell], cellTops[cell], cellLefts[cell] + cellSize, cellTops[cell] + cellSize);
+	}
+
+	// step : position of the busy indicator, -1 when not solving
+	public void setSolveStep(int step)
+	{
+		if (step == solveStep)
+			return;
+
+		solveStep = step;
+
+		invalidate(solveLeft, solveTop, solveRight, solveBottom);
+	}
+
+	// For whatever was drawn over the screen behind the renderer's back
+	public void invalidate(int left, int top, int right, int bottom)
+	{
+		if (left >= right || top >= bottom)
+			return;
+
+		if (!isDirty())
+		{
+			dirtyLeft = left;
+			dirtyTop = top;
+			dirtyRight = right;
+			dirtyBottom = bottom;
+			return;
+		}
+
+		dirtyLeft = Math.min(dirtyLeft, left);
+		dirtyTop = Math.min(dirtyTop, top);
+		dirtyRight = Math.max(dirtyRight, right);
+		dirtyBottom = Math.max(dirtyBottom, bottom);
+	}
+
+	public void invalidateAll()
+	{
+		invalidate(0, 0, width, height);
+	}
+
+	public boolean isDirty()
+	{
+		return dirtyLeft < dirtyRight && dirtyTop < dirtyBottom;
+	}
+
+	public int getDirtyLeft()
+	{
+		return dirtyLeft;
+	}
+
+	public int getDirtyTop()
+	{
+		return dirtyTop;
+	}
+
+	public int getDirtyRight()
+	{
+		return dirtyRight;
+	}
+
+	public int getDirtyBottom()
+	{
+		return dirtyBottom;
+	}
+
+	// Redraws a rectangle that covers the dirty one, as the surface may ask
+	// for more than was dirty, and leaves nothing dirty
+	public void draw(RenderCommands commands, int left, int top, int right, int bottom)
+	{
+		int i;
+
+		commands.drawStatic(left, top, right, bottom);
+
+		for (i = 0; i < cells; i++)
+		{
+			if (!overlaps(cellLefts[i], cellTops[i], cellLefts[i] + cellSize, cellTops[i] + cellSize,
+					left, top, right, bottom))
+				continue;
+
+			commands.drawCell(cellLefts[i], cellTops[i], cellSize, numbers[i],
+					(flags[i] & SELECTED) != 0, (flags[i] & CONFLICT) != 0, (flags[i] & SOLVED) != 0);
+		}
+
+		if (overlaps(solveLeft, solveTop, solveRight, solveBottom, left, top, right, bottom))
+			commands.drawSolveButton(solveLeft, solveTop, solveRight, solveBottom, solveStep);
+
+		dirtyLeft = 0;
+		dirtyTop = 0;
+		dirtyRight = 0;
+		dirtyBottom = 0;
+	}
+
+	private static boolean overlaps(int left, int top, int right, int bottom,
+			int otherLeft, int otherTop, int otherRight, int otherBottom)
+	{
+		return left < otherRight && otherLeft < right && top < otherBottom && otherTop < bottom;
+	}
+}
\ No newline at end of file
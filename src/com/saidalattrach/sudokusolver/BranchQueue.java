@@ -0,0 +1,93 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.LinkedList;
+
+// Branches of one ParallelSolver search waiting for a thread. A thread that
+// runs out of work waits here and makes the queue hungry, which busy
+// threads check at every node and answer by sharing a branch of their own.
+// The search is over once every thread waits and nothing is left queued
+final class BranchQueue
+{
+	private Object lock = new Object();
+	private LinkedList<SudokuSolver> branches = new LinkedList<SudokuSolver>();
+	private int threads;
+	private int waiting = 0;
+	private boolean closed = false;
+
+	// Set while a thread waits and nothing is queued for it
+	private volatile boolean hungry = false;
+
+	// threads : number of threads taking branches, all of which must keep
+	// taking them until they get null
+	BranchQueue(int threads)
+	{
+		this.threads = threads;
+	}
+
+	void add(SudokuSolver branch)
+	{
+		synchronized (lock)
+		{
+			branches.add(branch);
+			hungry = false;
+			lock.notifyAll();
+		}
+	}
+
+	boolean isHungry()
+	{
+		return hungry;
+	}
+
+	// Waits for a branch to search. Returns null once the search is over or
+	// the queue is closed
+	SudokuSolver take()
+	{
+		SudokuSolver branch;
+
+		synchronized (lock)
+		{
+			waiting++;
+
+			while (branches.isEmpty() && !closed)
+			{
+				// Nobody is left to share a branch
+				if (waiting == threads)
+				{
+					close();
+					break;
+				}
+
+				hungry = true;
+
+				try
+				{
+					lock.wait();
+				}
+				catch (InterruptedException e) {}
+			}
+
+			waiting--;
+
+			if (closed)
+				return null;
+
+			branch = branches.removeFirst();
+			hungry = waiting > 0 && branches.isEmpty();
+
+			return branch;
+		}
+	}
+
+	// Ends the search early, waking the threads that wait
+	void close()
+	{
+		synchronized (lock)
+		{
+			closed = true;
+			hungry = false;
+			branches.clear();
+			lock.notifyAll();
+		}
+	}
+}
\ No newline at end of file
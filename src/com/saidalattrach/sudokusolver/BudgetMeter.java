@@ -0,0 +1,111 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Spends the nodes of one search against a SolveBudget. Engines call spend
+// once per node and give up as soon as it returns false
+final class BudgetMeter
+{
+	// Reading the clock costs about as much as a cheap node, so it is only
+	// read every this many nodes. Must be a power of two
+	private static final int CLOCK_INTERVAL = 16;
+
+	// Nodes between progress reports. Must be a power of two
+	private static final int PROGRESS_INTERVAL = 4096;
+
+	private CancellationToken token;
+	private ProgressListener listener;
+	private long deadline;
+	private long maxNodes;
+	private long nodes;
+	private boolean exhausted;
+
+	// Nodes taken so far by every meter sharing the node limit, null if
+	// this meter has the limit to itself
+	private AtomicLong sharedNodes;
+
+	// Nodes taken from sharedNodes and not spent yet
+	private long reserved;
+
+	void start(SolveBudget budget)
+	{
+		token = budget.getToken();
+		listener = budget.getListener();
+		deadline = budget.getTimeoutNanos() > 0 ? System.nanoTime() + budget.getTimeoutNanos() : 0;
+		maxNodes = budget.getMaxNodes() > 0 ? budget.getMaxNodes() : Long.MAX_VALUE;
+		nodes = 0;
+		exhausted = false;
+		sharedNodes = null;
+		reserved = 0;
+	}
+
+	// Spends the node limit together with the other meters given the same
+	// counter, which starts at 0. Nodes are taken from it CLOCK_INTERVAL at
+	// a time, and never more than the limit in total
+	void shareNodes(AtomicLong counter)
+	{
+		sharedNodes = counter;
+		reserved = 0;
+	}
+
+	// Continues another meter, for a branch searched on a copy of a solver.
+	// The copy gets the nodes the other one has left, or keeps sharing them
+	void startFrom(BudgetMeter other)
+	{
+		token = other.token;
+		listener = other.listener;
+		deadline = other.deadline;
+		maxNodes = other.maxNodes;
+		nodes = other.nodes;
+		exhausted = other.exhausted;
+		sharedNodes = other.sharedNodes;
+		reserved = 0;
+	}
+
+	// Returns false once the budget is exhausted
+	boolean spend()
+	{
+		if (exhausted)
+			return false;
+
+		nodes++;
+
+		if (token != null && token.isCancelled())
+			exhausted = true;
+		else if (sharedNodes != null ? !reserve() : nodes > maxNodes)
+			exhausted = true;
+		else if ((nodes & (CLOCK_INTERVAL - 1)) == 0)
+		{
+			if (deadline != 0 && System.nanoTime() - deadline > 0)
+				exhausted = true;
+			else if (listener != null && (nodes & (PROGRESS_INTERVAL - 1)) == 0)
+				listener.onProgress(nodes);
+		}
+
+		return !exhausted;
+	}
+
+	// Returns false once the shared limit is used up
+	private boolean reserve()
+	{
+		long taken;
+
+		if (reserved == 0)
+		{
+			taken = sharedNodes.getAndAdd(CLOCK_INTERVAL);
+
+			if (taken >= maxNodes)
+				return false;
+
+			reserved = Math.min(CLOCK_INTERVAL, maxNodes - taken);
+		}
+
+		reserved--;
+		return true;
+	}
+
+	boolean isExhausted()
+	{
+		return exhausted;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.saidalattrach.sudokusolver;
+
+// Solves 9x9 grids through a SolutionCache, so a grid that is a relabeled,
+// permuted or transposed copy of one solved before is answered by mapping
+// the cached solution back instead of searching again. Canonicalizing costs
+// about as much as solving an easy puzzle, so this pays off when puzzles are
+// hard or come back often. countSolutions is not cached
+public class CachingSolver implements Solver
+{
+	// Grids with fewer clues have many solutions, are the slowest to
+	// canonicalize and are unlikely to come back, so they are just solved
+	private static final int MIN_CLUES = 17;
+
+	private int[] grid;
+	private Solver solver;
+	private SolutionCache cache;
+
+	private Canonicalizer canonicalizer = new Canonicalizer();
+	private GridTransform transform = new GridTransform();
+	private int[] canonical = new int[81];
+	private int[] solution = new int[81];
+
+	public CachingSolver(SolutionCache cache)
+	{
+		this(SolverType.BACKTRACKING.create(), cache);
+	}
+
+	// solver : solves the grids missing from the cache, must take 9x9 grids
+	public CachingSolver(Solver solver, SolutionCache cache)
+	{
+		this.solver = solver;
+		this.cache = cache;
+		grid = solver.getGrid();
+	}
+
+	public int[] getGrid()
+	{
+		return grid;
+	}
+
+	public void setGrid(int[] grid)
+	{
+		this.grid = grid;
+	}
+
+	public SolutionCache getCache()
+	{
+		return cache;
+	}
+
+	public boolean solve()
+	{
+		return solveCached(null) == SolveResult.SOLVED;
+	}
+
+	// Only the search for a grid missing from the cache spends the budget,
+	// and running out of it leaves the cache as it was
+	public SolveResult solve(SolveBudget budget)
+	{
+		return solveCached(budget);
+	}
+
+	public int countSolutions(int limit)
+	{
+		solver.setGrid(grid);
+		return solver.countSolutions(limit);
+	}
+
+	// budget : null for no limit
+	private SolveResult solveCached(SolveBudget budget)
+	{
+		int known;
+		SolveResult result;
+
+		if (!isCacheable())
+			return solveWith(grid, budget);
+
+		canonicalizer.canonicalize(grid, canonical, transform);
+		known = cache.lookup(canonical, solution);
+
+		if (known < 0)
+		{
+			// The canonical form is solved so its solution can be cached as is
+			System.arraycopy(canonical, 0, solution, 0, 81);
+			result = solveWith(solution, budget);
+
+			if (result == SolveResult.BUDGET_EXHAUSTED)
+				return result;
+
+			cache.put(canonical, result == SolveResult.SOLVED ? solution : null);
+			known = result == SolveResult.SOLVED ? 1 : 0;
+		}
+
+		if (known == 0)
+			return SolveResult.UNSOLVABLE;
+
+		transform.invert(solution, grid);
+		return SolveResult.SOLVED;
+	}
+
+	private SolveResult solveWith(int[] grid, SolveBudget budget)
+	{
+		solver.setGrid(grid);
+
+		if (budget != null)
+			return solver.solve(budget);
+
+		return solver.solve() ? SolveResult.SOLVED : SolveResult.UNSOLVABLE;
+	}
+
+	private boolean isCacheable()
+	{
+		int clues = 0;
+		int i;
+
+		if (grid.length != 81)
+			return false;
+
+		for (i = 0; i < 81; i++)
+		{
+			if (grid[i] < 0 || grid[i] > 9)
+				return false;
+
+			if (grid[i] != 0)
+				clues++;
+		}
+
+		return clues >= MIN_CLUES;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.saidalattrach.sudokusolver;
+
+// Lets one thread abandon a solve running on another. The search checks it
+// between nodes, so a cancelled solve returns within about a node
+public class CancellationToken
+{
+	private volatile boolean cancelled = false;
+
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	// Makes the token usable for another solve
+	public void reset()
+	{
+		cancelled = false;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,441 @@
+package com.saidalattrach.sudokusolver;
+
+// Maps 9x9 grids to a form shared by every grid that is the same up to
+// transposing, swapping bands or stacks, swapping rows within a band or
+// columns within a stack, and relabeling the numbers. Of all those grids,
+// with the numbers relabeled 1, 2, 3... in order of first appearance, the
+// canonical form is the smallest comparing row by row: first which cells of
+// the row are blank, filled cells first, then the numbers in it.
+//
+// Every way of ordering the columns is tried, and for each the rows are
+// chosen one at a time, only following the rows that give the smallest
+// next row and giving up as soon as the grid gets bigger than the best one
+// so far. Comparing the blank cells first lets most of that be done on
+// 9-bit patterns, and putting filled cells first lets the clues of the
+// first row pin down the column order early. Grids with a lot of symmetry,
+// nearly empty ones, can tie on a huge number of orders. Past MAX_NODES
+// only the first of the tied rows is followed, so two such grids could get
+// different forms, but the transform always maps the grid to the form it
+// returns
+public class Canonicalizer
+{
+	// Search nodes after which ties are no longer all followed
+	private static final int MAX_NODES = 1 << 16;
+
+	private static final int[][] PERMUTATIONS =
+	{
+		{ 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 }
+	};
+
+	// The grid and its transpose
+	private int[][] sources = new int[2][81];
+	private int[] source;
+	private boolean transposed;
+
+	// Blank cells of each row of each source within each stack, for each
+	// order of the stack's columns, the first column as the highest of 3 bits
+	private int[][][][] stackPatterns = new int[2][9][3][6];
+
+	// Smallest blank pattern any row can have as the first row. Only the
+	// column orders that give it to some row can lead to the canonical form
+	private int firstRowBound;
+	private int[] stackMinimums = new int[3];
+
+	// Source column of each column, and source row of each row so far
+	private int[] colMap = new int[9];
+	private int[] rowMap = new int[9];
+
+	// Blank cells of each source row with the current column order, the
+	// first column as the highest of 9 bits
+	private int[] patterns = new int[9];
+
+	// Rows chosen so far, relabeled
+	private int[] rows = new int[81];
+
+	// Labels given to the numbers before each row, and the next free label
+	private int[][] labels = new int[10][10];
+	private int[] nextLabels = new int[10];
+
+	// The rows that can come next at each depth, relabeled, with the labels
+	// they leave behind
+	private int[][] candidates = new int[9][9];
+	private int[][][] candidateRows = new int[9][9][9];
+	private int[][][] candidateLabels = new int[9][9][10];
+	private int[][] candidateNextLabels = new int[9][9];
+
+	// Smallest grid found so far and how it was made
+	private int[] best = new int[81];
+	private int[] bestPatterns = new int[9];
+	private boolean hasBest;
+	private boolean bestTransposed;
+	private int[] bestRowMap = new int[9];
+	private int[] bestColMap = new int[9];
+	private int[] bestLabels = new int[10];
+
+	// Bumped whenever best changes
+	private int updates;
+	private int nodes;
+
+	// Writes the canonical form of the grid, and the transform that makes it
+	// from the grid. The grid must hold 81 numbers from 0 to 9
+	public void canonicalize(int[] grid, int[] canonical, GridTransform transform)
+	{
+		int t, sp, p0, p1, p2;
+		int[][][] rowPatterns;
+		int row, col;
+
+		for (row = 0; row < 9; row++)
+		{
+			for (col = 0; col < 9; col++)
+			{
+				sources[0][row * 9 + col] = grid[row * 9 + col];
+				sources[1][row * 9 + col] = grid[col * 9 + row];
+			}
+		}
+
+		fillStackPatterns();
+
+		hasBest = false;
+		nodes = 0;
+
+		for (t = 0; t < 2; t++)
+		{
+			source = sources[t];
+			transposed = t == 1;
+			rowPatterns = stackPatterns[t];
+
+			for (sp = 0; sp < 6; sp++)
+			{
+				for (p0 = 0; p0 < 6; p0++)
+				{
+					setStack(0, sp, p0);
+
+					for (row = 0; row < 9; row++)
+						patterns[row] = rowPatterns[row][PERMUTATIONS[sp][0]][p0] << 6;
+
+					if (!firstRowCanMatch(6))
+						continue;
+
+					for (p1 = 0; p1 < 6; p1++)
+					{
+						setStack(1, sp, p1);
+
+						for (row = 0; row < 9; row++)
+							patterns[row] = (patterns[row] & 0x1c0) | rowPatterns[row][PERMUTATIONS[sp][1]][p1] << 3;
+
+						if (!firstRowCanMatch(3))
+							continue;
+
+						for (p2 = 0; p2 < 6; p2++)
+						{
+							setStack(2, sp, p2);
+
+							for (row = 0; row < 9; row++)
+								patterns[row] = (patterns[row] & 0x1f8) | rowPatterns[row][PERMUTATIONS[sp][2]][p2];
+
+							if (!firstRowCanMatch(0))
+								continue;
+
+							for (row = 0; row < 10; row++)
+								labels[0][row] = 0;
+							nextLabels[0] = 0;
+
+							search(0, 0, hasBest);
+						}
+					}
+				}
+			}
+		}
+
+		System.arraycopy(best, 0, canonical, 0, 81);
+		fillTransform(transform);
+	}
+
+	// Also finds the bound of the first row: the pattern of a row is smallest
+	// with its stacks in order of blanks and the blanks last in each stack
+	private void fillStackPatterns()
+	{
+		int t, row, stack, permutation, i;
+		int pattern;
+		int smallest;
+
+		for (t = 0; t < 2; t++)
+		{
+			for (row = 0; row < 9; row++)
+			{
+				for (stack = 0; stack < 3; stack++)
+				{
+					for (permutation = 0; permutation < 6; permutation++)
+					{
+						pattern = 0;
+
+						for (i = 0; i < 3; i++)
+							if (sources[t][row * 9 + stack * 3 + PERMUTATIONS[permutation][i]] == 0)
+								pattern |= 4 >> i;
+
+						stackPatterns[t][row][stack][permutation] = pattern;
+					}
+				}
+			}
+		}
+
+		firstRowBound = 1 << 9;
+
+		for (t = 0; t < 2; t++)
+		{
+			for (row = 0; row < 9; row++)
+			{
+				for (stack = 0; stack < 3; stack++)
+				{
+					smallest = 7;
+
+					for (permutation = 0; permutation < 6; permutation++)
+						if (stackPatterns[t][row][stack][permutation] < smallest)
+							smallest = stackPatterns[t][row][stack][permutation];
+
+					stackMinimums[stack] = smallest;
+				}
+
+				for (permutation = 0; permutation < 6; permutation++)
+				{
+					pattern = stackMinimums[PERMUTATIONS[permutation][0]] << 6
+							| stackMinimums[PERMUTATIONS[permutation][1]] << 3
+							| stackMinimums[PERMUTATIONS[permutation][2]];
+
+					if (pattern < firstRowBound)
+						firstRowBound = pattern;
+				}
+			}
+		}
+	}
+
+	// stackPermutation : order of the stacks
+	// columnPermutation : order of the columns within the stack
+	private void setStack(int stack, int stackPermutation, int columnPermutation)
+	{
+		int i;
+
+		for (i = 0; i < 3; i++)
+			colMap[stack * 3 + i] = PERMUTATIONS[stackPermutation][stack] * 3 + PERMUTATIONS[columnPermutation][i];
+	}
+
+	// Checks whether some row can still reach the bound of the first row,
+	// on the columns already ordered.
+	// unknown : number of low bits of the patterns not ordered yet
+	private boolean firstRowCanMatch(int unknown)
+	{
+		int row;
+
+		for (row = 0; row < 9; row++)
+			if (patterns[row] >> unknown == firstRowBound >> unknown)
+				return true;
+
+		return false;
+	}
+
+	// tight : whether the rows so far are the same as those of the best grid
+	private void search(int depth, int usedRows, boolean tight)
+	{
+		int[] depthCandidates;
+		int count = 0;
+		int smallestPattern = 1 << 9;
+		int smallest = -1;
+		int band;
+		int row;
+		int difference;
+		int updatesBefore;
+		int i;
+
+		// Only a smaller grid is kept, so equal ones keep the first transform
+		if (depth == 9)
+		{
+			if (!tight)
+				record();
+			return;
+		}
+
+		nodes++;
+		depthCandidates = candidates[depth];
+
+		// A band is taken whole, so a new band starts every third row
+		if (depth % 3 == 0)
+		{
+			for (row = 0; row < 9; row++)
+			{
+				if ((usedRows & (7 << (row / 3 * 3))) == 0)
+				{
+					depthCandidates[count] = row;
+					count++;
+				}
+			}
+		}
+		else
+		{
+			band = rowMap[depth - 1] / 3 * 3;
+
+			for (row = band; row < band + 3; row++)
+			{
+				if ((usedRows & (1 << row)) == 0)
+				{
+					depthCandidates[count] = row;
+					count++;
+				}
+			}
+		}
+
+		for (i = 0; i < count; i++)
+			if (patterns[depthCandidates[i]] < smallestPattern)
+				smallestPattern = patterns[depthCandidates[i]];
+
+		if (tight)
+		{
+			if (smallestPattern > bestPatterns[depth])
+				return;
+
+			tight = smallestPattern == bestPatterns[depth];
+		}
+
+		// Only rows with the smallest blank pattern need relabeling
+		for (i = 0; i < count; i++)
+		{
+			if (patterns[depthCandidates[i]] != smallestPattern)
+				continue;
+
+			relabelRow(depth, i);
+
+			if (smallest == -1 || compare(candidateRows[depth][i], 0, candidateRows[depth][smallest], 0) < 0)
+				smallest = i;
+		}
+
+		if (tight)
+		{
+			difference = compare(candidateRows[depth][smallest], 0, best, depth * 9);
+
+			if (difference > 0)
+				return;
+
+			tight = difference == 0;
+		}
+
+		for (i = smallest; i < count; i++)
+		{
+			if (patterns[depthCandidates[i]] != smallestPattern
+					|| compare(candidateRows[depth][i], 0, candidateRows[depth][smallest], 0) != 0)
+				continue;
+
+			// Out of budget, the first of the ties has to do
+			if (nodes > MAX_NODES && i > smallest)
+				break;
+
+			updatesBefore = updates;
+
+			rowMap[depth] = depthCandidates[i];
+			System.arraycopy(candidateRows[depth][i], 0, rows, depth * 9, 9);
+			System.arraycopy(candidateLabels[depth][i], 0, labels[depth + 1], 0, 10);
+			nextLabels[depth + 1] = candidateNextLabels[depth][i];
+
+			search(depth + 1, usedRows | (1 << depthCandidates[i]), tight);
+
+			// The best grid now starts with the rows so far
+			if (updates != updatesBefore)
+				tight = true;
+		}
+	}
+
+	// Relabels candidate i of the given depth, going on from the labels the
+	// rows before it gave
+	private void relabelRow(int depth, int i)
+	{
+		int[] rowLabels = candidateLabels[depth][i];
+		int[] row = candidateRows[depth][i];
+		int offset = candidates[depth][i] * 9;
+		int label = nextLabels[depth];
+		int number;
+		int col;
+
+		System.arraycopy(labels[depth], 0, rowLabels, 0, 10);
+
+		for (col = 0; col < 9; col++)
+		{
+			number = source[offset + colMap[col]];
+
+			if (number != 0 && rowLabels[number] == 0)
+			{
+				label++;
+				rowLabels[number] = label;
+			}
+
+			row[col] = rowLabels[number];
+		}
+
+		candidateNextLabels[depth][i] = label;
+	}
+
+	private static int compare(int[] a, int aOffset, int[] b, int bOffset)
+	{
+		int i;
+
+		for (i = 0; i < 9; i++)
+			if (a[aOffset + i] != b[bOffset + i])
+				return a[aOffset + i] - b[bOffset + i];
+
+		return 0;
+	}
+
+	// Keeps the grid just completed, which is smaller than the best one or
+	// the first one found
+	private void record()
+	{
+		int i;
+
+		System.arraycopy(rows, 0, best, 0, 81);
+		System.arraycopy(rowMap, 0, bestRowMap, 0, 9);
+
+		for (i = 0; i < 9; i++)
+			bestPatterns[i] = patterns[rowMap[i]];
+
+		System.arraycopy(colMap, 0, bestColMap, 0, 9);
+		System.arraycopy(labels[9], 0, bestLabels, 0, 10);
+		bestTransposed = transposed;
+		hasBest = true;
+		updates++;
+	}
+
+	private void fillTransform(GridTransform transform)
+	{
+		int label = 0;
+		int row, col;
+		int number;
+
+		for (row = 0; row < 9; row++)
+		{
+			for (col = 0; col < 9; col++)
+			{
+				if (bestTransposed)
+					transform.cellMap[row * 9 + col] = bestColMap[col] * 9 + bestRowMap[row];
+				else
+					transform.cellMap[row * 9 + col] = bestRowMap[row] * 9 + bestColMap[col];
+			}
+		}
+
+		for (number = 1; number <= 9; number++)
+			if (bestLabels[number] > label)
+				label = bestLabels[number];
+
+		// Numbers missing from the grid take the labels left, in order
+		for (number = 1; number <= 9; number++)
+		{
+			if (bestLabels[number] == 0)
+			{
+				label++;
+				bestLabels[number] = label;
+			}
+		}
+
+		for (number = 0; number <= 9; number++)
+		{
+			transform.digitMap[number] = bestLabels[number];
+			transform.inverseDigitMap[bestLabels[number]] = number;
+		}
+	}
+}
\ No newline at end of file
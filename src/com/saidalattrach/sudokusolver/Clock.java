@@ -0,0 +1,29 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Source of time for FrameScheduler, so it can run on a fake clock
+public interface Clock
+{
+	// System.nanoTime, parking the thread while it waits
+	public static final Clock SYSTEM = new Clock()
+	{
+		public long nanoTime()
+		{
+			return System.nanoTime();
+		}
+
+		public void sleepUntil(long deadline)
+		{
+			long left;
+
+			while ((left = deadline - System.nanoTime()) > 0)
+				LockSupport.parkNanos(left);
+		}
+	};
+
+	public long nanoTime();
+
+	// Returns once nanoTime has reached the deadline
+	public void sleepUntil(long deadline);
+}
\ No newline at end of file
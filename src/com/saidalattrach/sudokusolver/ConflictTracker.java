@@ -0,0 +1,163 @@
+package com.saidalattrach.sudokusolver;
+
+// Tracks which cells of a board being edited are in conflict, meaning one of
+// their units holds a number twice. Every unit keeps a count of each number,
+// so an edit only updates the three units of its cell and rechecks the cells
+// of the units whose state changed, which are all peers of the edited cell
+public class ConflictTracker
+{
+	private BoardGeometry geometry;
+	private int size;
+
+	private int[] numbers;
+
+	// counts[unit * (size + 1) + number] is how often number is in unit
+	private int[] counts;
+
+	// Numbers that are more than once in each unit
+	private int[] duplicates;
+
+	private boolean[] conflicts;
+
+	// Cells whose conflict state changed with the last edit
+	private int[] changed;
+	private int changedCount = 0;
+
+	public ConflictTracker()
+	{
+		this(3);
+	}
+
+	// Tracks boards of boxSize x boxSize boxes, up to 25x25
+	public ConflictTracker(int boxSize)
+	{
+		geometry = BoardGeometry.get(boxSize);
+		size = geometry.size;
+
+		numbers = new int[geometry.cells];
+		counts = new int[geometry.units * (size + 1)];
+		duplicates = new int[geometry.units];
+		conflicts = new boolean[geometry.cells];
+
+		// The cell and its peers
+		changed = new int[geometry.peers[0].length + 1];
+	}
+
+	// Puts number in the cell, 0 to empty it
+	public void set(int cell, int number)
+	{
+		int[] units = geometry.cellUnits[cell];
+		int old = numbers[cell];
+		int i, unit;
+		boolean flipped = false;
+
+		changedCount = 0;
+
+		if (old == number)
+			return;
+
+		numbers[cell] = number;
+
+		for (i = 0; i < units.length; i++)
+		{
+			unit = units[i];
+
+			if (old != 0 && remove(unit, old))
+				flipped = true;
+
+			if (number != 0 && add(unit, number))
+				flipped = true;
+		}
+
+		// No unit gained or lost its last duplicate, so no cell changed
+		if (!flipped)
+			return;
+
+		recheck(cell);
+
+		for (i = 0; i < geometry.peers[cell].length; i++)
+			recheck(geometry.peers[cell][i]);
+	}
+
+	public int get(int cell)
+	{
+		return numbers[cell];
+	}
+
+	public boolean isConflict(int cell)
+	{
+		return conflicts[cell];
+	}
+
+	// Number of cells whose conflict state the last call to set changed.
+	// getChanged holds them first
+	public int getChangedCount()
+	{
+		return changedCount;
+	}
+
+	public int[] getChanged()
+	{
+		return changed;
+	}
+
+	public void clear()
+	{
+		int i;
+
+		for (i = 0; i < numbers.length; i++)
+		{
+			numbers[i] = 0;
+			conflicts[i] = false;
+		}
+
+		for (i = 0; i < counts.length; i++)
+			counts[i] = 0;
+
+		for (i = 0; i < duplicates.length; i++)
+			duplicates[i] = 0;
+
+		changedCount = 0;
+	}
+
+	// Returns true if that gave the unit its first duplicate
+	private boolean add(int unit, int number)
+	{
+		int index = unit * (size + 1) + number;
+
+		counts[index]++;
+
+		if (counts[index] != 2)
+			return false;
+
+		duplicates[unit]++;
+		return duplicates[unit] == 1;
+	}
+
+	// Returns true if that took the last duplicate out of the unit
+	private boolean remove(int unit, int number)
+	{
+		int index = unit * (size + 1) + number;
+
+		counts[index]--;
+
+		if (counts[index] != 1)
+			return false;
+
+		duplicates[unit]--;
+		return duplicates[unit] == 0;
+	}
+
+	private void recheck(int cell)
+	{
+		int[] units = geometry.cellUnits[cell];
+		boolean conflict = duplicates[units[0]] > 0 || duplicates[units[1]] > 0 || duplicates[units[2]] > 0;
+
+		if (conflict == conflicts[cell])
+			return;
+
+		conflicts[cell] = conflict;
+		changed[changedCount] = cell;
+		changedCount++;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,339 @@
+package com.saidalattrach.sudokusolver;
+
+// Solves the grid as an exact cover problem with Knuth's Dancing Links.
+// On a 9x9 board each of the 729 rows places a number in a cell and covers
+// four of the 324 columns: the cell is filled, and the number appears in
+// that row, column and box. The links are built once and restored after
+// every solve, so the same instance can be reused without allocating
+public class DancingLinksSolver implements Solver
+{
+	// Node 0 is the root, nodes 1 to columns the column headers, and each
+	// row has four nodes after that
+	private static final int ROOT = 0;
+
+	private int[] grid;
+
+	private BoardGeometry geometry;
+	private int boardSize;
+	private int cells;
+	private int columns;
+	private int rows;
+	private int firstRowNode;
+
+	private int[] left;
+	private int[] right;
+	private int[] up;
+	private int[] down;
+	private int[] column;
+	private int[] size;
+
+	// Row nodes chosen so far, givens first
+	private int[] solution;
+
+	// The search stops once it has found this many solutions
+	private int solutionLimit = 1;
+	private int solutionCount = 0;
+
+	// Only spent during a solve with a SolveBudget
+	private BudgetMeter meter = new BudgetMeter();
+	private boolean budgeted = false;
+
+	public DancingLinksSolver()
+	{
+		this(new int[9 * 9]);
+	}
+
+	public DancingLinksSolver(int[] grid)
+	{
+		this(grid, 3);
+	}
+
+	// Solves boards of boxSize x boxSize boxes, up to 25x25
+	public DancingLinksSolver(int[] grid, int boxSize)
+	{
+		int nodes;
+
+		this.grid = grid;
+		geometry = BoardGeometry.get(boxSize);
+		boardSize = geometry.size;
+		cells = geometry.cells;
+		columns = 4 * cells;
+		rows = boardSize * cells;
+		firstRowNode = columns + 1;
+		nodes = firstRowNode + 4 * rows;
+
+		left = new int[nodes];
+		right = new int[nodes];
+		up = new int[nodes];
+		down = new int[nodes];
+		column = new int[nodes];
+		size = new int[columns + 1];
+		solution = new int[cells];
+
+		buildLinks();
+	}
+
+	public int getBoxSize()
+	{
+		return geometry.boxSize;
+	}
+
+	public int[] getGrid()
+	{
+		return grid;
+	}
+
+	public void setGrid(int[] grid)
+	{
+		this.grid = grid;
+	}
+
+	public boolean solve()
+	{
+		return countSolutions(1) == 1;
+	}
+
+	public SolveResult solve(SolveBudget budget)
+	{
+		int count;
+
+		meter.start(budget);
+		budgeted = true;
+		count = countSolutions(1);
+		budgeted = false;
+
+		if (count == 1)
+			return SolveResult.SOLVED;
+
+		return meter.isExhausted() ? SolveResult.BUDGET_EXHAUSTED : SolveResult.UNSOLVABLE;
+	}
+
+	public int countSolutions(int limit)
+	{
+		int givens = 0;
+		int i, j, node;
+		boolean result = true;
+
+		solutionLimit = limit;
+		solutionCount = 0;
+
+		if (grid.length != cells)
+			return 0;
+
+		// Select the row of every given. A column that is already covered
+		// means two givens clash
+		for (i = 0; i < cells && result; i++)
+		{
+			if (grid[i] == 0)
+				continue;
+
+			if (grid[i] < 0 || grid[i] > boardSize)
+			{
+				result = false;
+				break;
+			}
+
+			node = firstRowNode + 4 * (i * boardSize + grid[i] - 1);
+
+			for (j = 0; j < 4; j++)
+			{
+				if (isCovered(column[node + j]))
+				{
+					result = false;
+					break;
+				}
+			}
+
+			if (result)
+			{
+				selectRow(node);
+				solution[givens] = node;
+				givens++;
+			}
+		}
+
+		if (result)
+			search(givens);
+
+		// Put the givens back so the links are ready for the next solve
+		for (i = givens - 1; i >= 0; i--)
+			deselectRow(solution[i]);
+
+		return solutionCount;
+	}
+
+	private void buildLinks()
+	{
+		int i, c, r;
+		int node;
+		int cell, number;
+
+		for (i = 0; i <= columns; i++)
+		{
+			left[i] = i - 1;
+			right[i] = i + 1;
+			up[i] = i;
+			down[i] = i;
+			column[i] = i;
+			size[i] = 0;
+		}
+
+		left[ROOT] = columns;
+		right[columns] = ROOT;
+
+		node = firstRowNode;
+
+		for (r = 0; r < rows; r++)
+		{
+			cell = r / boardSize;
+			number = r % boardSize;
+
+			for (i = 0; i < 4; i++)
+			{
+				// The cell, then the number in each of the cell's units
+				if (i == 0)
+					c = 1 + cell;
+				else
+					c = 1 + cells + geometry.cellUnits[cell][i - 1] * boardSize + number;
+
+				// Append at the bottom of the column
+				column[node] = c;
+				up[node] = up[c];
+				down[node] = c;
+				down[up[c]] = node;
+				up[c] = node;
+				size[c]++;
+
+				// Link the four nodes of the row in a circle
+				left[node] = i == 0 ? node + 3 : node - 1;
+				right[node] = i == 3 ? node - 3 : node + 1;
+
+				node++;
+			}
+		}
+	}
+
+	// Depth first search over the remaining columns, always branching on the
+	// column with the fewest rows. The links are restored before returning,
+	// and the grid is filled in with the first solution found.
+	// Returns true once the solution limit is reached or the budget runs out
+	private boolean search(int depth)
+	{
+		int c, n, j;
+		int best, node;
+		boolean found = false;
+
+		if (budgeted && !meter.spend())
+			return true;
+
+		if (right[ROOT] == ROOT)
+		{
+			solutionCount++;
+
+			if (solutionCount == 1)
+			{
+				for (j = 0; j < depth; j++)
+				{
+					node = solution[j];
+					n = (node - firstRowNode) / 4;
+					grid[n / boardSize] = n % boardSize + 1;
+				}
+			}
+
+			return solutionCount >= solutionLimit;
+		}
+
+		best = right[ROOT];
+
+		for (c = right[best]; c != ROOT; c = right[c])
+			if (size[c] < size[best])
+				best = c;
+
+		if (size[best] == 0)
+			return false;
+
+		cover(best);
+
+		for (n = down[best]; n != best && !found; n = down[n])
+		{
+			solution[depth] = n;
+
+			for (j = right[n]; j != n; j = right[j])
+				cover(column[j]);
+
+			found = search(depth + 1);
+
+			for (j = left[n]; j != n; j = left[j])
+				uncover(column[j]);
+		}
+
+		uncover(best);
+
+		return found;
+	}
+
+	private boolean isCovered(int c)
+	{
+		return right[left[c]] != c;
+	}
+
+	private void selectRow(int node)
+	{
+		int j = node;
+
+		do
+		{
+			cover(column[j]);
+			j = right[j];
+		}
+		while (j != node);
+	}
+
+	private void deselectRow(int node)
+	{
+		int j = left[node];
+
+		do
+		{
+			uncover(column[j]);
+			j = left[j];
+		}
+		while (j != left[node]);
+	}
+
+	private void cover(int c)
+	{
+		int i, j;
+
+		right[left[c]] = right[c];
+		left[right[c]] = left[c];
+
+		for (i = down[c]; i != c; i = down[i])
+		{
+			for (j = right[i]; j != i; j = right[j])
+			{
+				down[up[j]] = down[j];
+				up[down[j]] = up[j];
+				size[column[j]]--;
+			}
+		}
+	}
+
+	private void uncover(int c)
+	{
+		int i, j;
+
+		for (i = up[c]; i != c; i = up[i])
+		{
+			for (j = left[i]; j != i; j = left[j])
+			{
+				size[column[j]]++;
+				down[up[j]] = j;
+				up[down[j]] = j;
+			}
+		}
+
+		right[left[c]] = c;
+		left[right[c]] = c;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package com.saidalattrach.sudokusolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Solves a file of puzzles headless, one puzzle per line of 81 characters
+// with 0 or . for blanks, and writes one line per input line to the output
+// file: the solution, or the line unchanged if it has none or is not a
+// puzzle, so blank lines and comments stay where they were. Line endings,
+// and a last line without one, are kept as they were too.
+// The input is memory-mapped and parsed in place, without a String per line.
+// The output is written from the start, so it must be another file.
+//
+// Usage: java com.saidalattrach.sudokusolver.FileSolver <input> <output>
+public class FileSolver
+{
+	// Inputs bigger than this are mapped one window at a time
+	private static final int WINDOW_SIZE = 1 << 28;
+	private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+	private Solver solver;
+	private int[] grid = new int[9 * 9];
+
+	private FileChannel output;
+	private ByteBuffer outputBuffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+
+	private long puzzles;
+	private long solved;
+
+	public FileSolver()
+	{
+		this(SolverType.BACKTRACKING.create());
+	}
+
+	public FileSolver(Solver solver)
+	{
+		this.solver = solver;
+		solver.setGrid(grid);
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 2)
+		{
+			System.err.println("Usage: FileSolver <input> <output>");
+			System.exit(2);
+		}
+
+		FileSolver fileSolver = new FileSolver();
+		long start = System.nanoTime();
+
+		fileSolver.solveFile(args[0], args[1]);
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.err.println(String.format("%d puzzles, %d solved in %.2f s (%.0f puzzles/s)",
+				fileSolver.puzzles, fileSolver.solved, seconds, fileSolver.puzzles / seconds));
+	}
+
+	public long getPuzzleCount()
+	{
+		return puzzles;
+	}
+
+	public long getSolvedCount()
+	{
+		return solved;
+	}
+
+	public void solveFile(String inputPath, String outputPath) throws IOException
+	{
+		// Opening the output truncates it, input included if it is the same
+		if (new File(inputPath).getCanonicalFile().equals(new File(outputPath).getCanonicalFile()))
+			throw new IOException("Input and output are the same file: " + inputPath);
+
+		RandomAccessFile in = new RandomAccessFile(inputPath, "r");
+		RandomAccessFile out = new RandomAccessFile(outputPath, "rw");
+
+		try
+		{
+			FileChannel input = in.getChannel();
+			long size = input.size();
+			long position = 0;
+			int consumed;
+
+			out.setLength(0);
+			output = out.getChannel();
+			outputBuffer.clear();
+
+			while (position < size)
+			{
+				long length = Math.min(WINDOW_SIZE, size - position);
+				MappedByteBuffer window = input.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+				consumed = solveLines(window, (int) length, position + length == size);
+
+				// A line longer than a whole window
+				if (consumed == 0)
+					throw new IOException("Line too long at byte " + position);
+
+				position += consumed;
+			}
+
+			flush();
+		}
+		finally
+		{
+			output = null;
+			in.close();
+			out.close();
+		}
+	}
+
+	// Solves every complete line of the window. The last line only counts as
+	// complete without a newline at the end of the file.
+	// Returns the number of bytes consumed
+	private int solveLines(ByteBuffer window, int length, boolean endOfFile) throws IOException
+	{
+		int start = 0;
+		int end;
+
+		while (start < length)
+		{
+			end = start;
+			while (end < length && window.get(end) != '\n')
+				end++;
+
+			if (end == length && !endOfFile)
+				break;
+
+			solveLine(window, start, end, end < length);
+			start = end + 1;
+		}
+
+		return Math.min(start, length);
+	}
+
+	// newline : whether the line ends with one, which only the last line
+	// of the file may not
+	private void solveLine(ByteBuffer window, int start, int end, boolean newline) throws IOException
+	{
+		int contentEnd = end;
+		int i;
+
+		if (end > start && window.get(end - 1) == '\r')
+			contentEnd--;
+
+		if (contentEnd - start == 81 && parse(window, start))
+		{
+			puzzles++;
+
+			if (solver.solve())
+			{
+				solved++;
+				reserve(81);
+
+				for (i = 0; i < 81; i++)
+					outputBuffer.put((byte) ('0' + grid[i]));
+
+				start += 81;
+			}
+		}
+
+		// Copy the rest of the line through unchanged, with its line ending
+		for (i = start; i < end; i++)
+		{
+			reserve(1);
+			outputBuffer.put(window.get(i));
+		}
+
+		if (newline)
+		{
+			reserve(1);
+			outputBuffer.put((byte) '\n');
+		}
+	}
+
+	// Returns false if the line is not a puzzle, so it is not counted
+	private boolean parse(ByteBuffer window, int start)
+	{
+		int i;
+		byte c;
+
+		for (i = 0; i < 81; i++)
+		{
+			c = window.get(start + i);
+
+			if (c >= '1' && c <= '9')
+				grid[i] = c - '0';
+			else if (c == '0' || c == '.')
+				grid[i] = 0;
+			else
+				return false;
+		}
+
+		return true;
+	}
+
+	private void reserve(int bytes) throws IOException
+	{
+		if (outputBuffer.remaining() < bytes)
+			flush();
+	}
+
+	private void flush() throws IOException
+	{
+		outputBuffer.flip();
+
+		while (outputBuffer.hasRemaining())
+			output.write(outputBuffer);
+
+		outputBuffer.clear();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.Arrays;
+
+// Plays animations at a steady frame rate, sleeping between frames instead
+// of spinning. An animation runs on the clock, not on the frame count, so
+// a late frame is skipped rather than slowing it down. The scheduler keeps
+// the time between the recent frames and counts the missed deadlines. On a
+// device that misses too many, animations are shortened, or skipped if the
+// slow scale is 0
+public class FrameScheduler
+{
+	// An animation drawn one frame at a time
+	public interface Animation
+	{
+		// t : seconds into the animation. The last frame always gets its
+		// full length, so the animation ends where it should
+		public void drawFrame(float t);
+	}
+
+	// Recent frame times kept for the percentiles
+	private static final int SAMPLES = 256;
+
+	// Frames drawn before missed deadlines can mark the device slow
+	private static final int MIN_FRAMES = 30;
+
+	private Clock clock;
+	private long frameNanos;
+	private float slowScale = 0.5f;
+
+	// Ring of the times between frames, in nanoseconds
+	private long[] samples = new long[SAMPLES];
+	private long[] sorted = new long[SAMPLES];
+	private int sampleCount = 0;
+
+	private long frames = 0;
+	private long missedFrames = 0;
+
+	public FrameScheduler(long frameNanos)
+	{
+		this(Clock.SYSTEM, frameNanos);
+	}
+
+	public FrameScheduler(Clock clock, long frameNanos)
+	{
+		this.clock = clock;
+		this.frameNanos = frameNanos;
+	}
+
+	// scale : length of the animations on a slow device, relative to their
+	// normal length. 0 only shows their last frame
+	public void setSlowScale(float scale)
+	{
+		slowScale = scale;
+	}
+
+	// Draws the frames of an animation of the given length in seconds, and
+	// returns after its last frame
+	public void play(Animation animation, float seconds)
+	{
+		float length = isSlow() ? seconds * slowScale : seconds;
+		long duration = (long) (length * 1e9);
+		long start, deadline, now, last, skipped;
+		int drawn = 0;
+
+		if (duration <= 0)
+		{
+			animation.drawFrame(seconds);
+			return;
+		}
+
+		start = clock.nanoTime();
+		deadline = start;
+		last = start;
+
+		while (true)
+		{
+			now = clock.nanoTime();
+
+			if (now - start >= duration)
+				break;
+
+			if (drawn > 0)
+				addSample(now - last);
+
+			last = now;
+
+			// A shortened animation goes through its time faster
+			animation.drawFrame((float) ((now - start) / 1e9 * seconds / length));
+			drawn++;
+
+			deadline += frameNanos;
+			now = clock.nanoTime();
+
+			// Drawing took more than a frame, so give up on the deadlines
+			// that went by and wait for the next one
+			if (now - deadline >= 0)
+			{
+				skipped = (now - deadline) / frameNanos + 1;
+				missedFrames += skipped;
+				deadline += skipped * frameNanos;
+			}
+
+			clock.sleepUntil(deadline);
+		}
+
+		if (drawn > 0)
+			addSample(clock.nanoTime() - last);
+
+		animation.drawFrame(seconds);
+		frames += drawn + 1;
+	}
+
+	// True once more than a third of the frame deadlines were missed
+	public boolean isSlow()
+	{
+		return frames >= MIN_FRAMES && missedFrames * 3 > frames + missedFrames;
+	}
+
+	public long getFrames()
+	{
+		return frames;
+	}
+
+	public long getMissedFrames()
+	{
+		return missedFrames;
+	}
+
+	// Time between frames under which a fraction p of the recent frames
+	// fell, in nanoseconds
+	public long getFrameTimePercentile(double p)
+	{
+		int count = Math.min(sampleCount, SAMPLES);
+
+		if (count == 0)
+			return 0;
+
+		System.arraycopy(samples, 0, sorted, 0, count);
+		Arrays.sort(sorted, 0, count);
+
+		return sorted[Math.min(count - 1, (int) (p * count))];
+	}
+
+	public void resetStats()
+	{
+		sampleCount = 0;
+		frames = 0;
+		missedFrames = 0;
+	}
+
+	private void addSample(long nanos)
+	{
+		samples[sampleCount % SAMPLES] = nanos;
+
+		// Stays large enough to tell a full ring once it has wrapped
+		sampleCount = sampleCount < 2 * SAMPLES ? sampleCount + 1 : SAMPLES + 1;
+	}
+}
\ No newline at end of file
@@ -1,820 +1,674 @@
-package com.saidalattrach.sudokusolver;
-
-import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.PorterDuff.Mode;
-import android.graphics.Rect;
-import android.graphics.Color;
-import android.graphics.Typeface;
-import android.view.MotionEvent;
-import android.view.SurfaceHolder;
-
-public class Grid implements Runnable
-{
-	private static final float relGridSize = 0.975f;
-	private static final float relSpacing = 0.002f;
-	private static final float blockSpacingFactor = 8.0f;
-	private static final float animTime = 1.0f;
-	private static final float animDelay = 0.075f;
-	private static final float shakeAnimTime = 0.4f;
-	private static final float relAmplitude = 0.15f;
-	private static final float frequency = 6.0f;
-	private static final int bgColor = 0xFF303030;
-	private static final int cellColor = 0xFFFFFFFF;
-	private static final int selectColor = 0xFFB8B8B8;
-	private static final int keyPadColor = 0xFF808080;
-	private static final int keyPadNumColor = 0xFF000000;
-	private static final int solvedNumColor = 0xFF1F75FE;
-	
-	private int gridSize;
-	private int cellSize;
-	private int spacing;
-	private int blockSpacing;
-	private int keyPadY;
-	private int gridX;
-	private int gridY;
-	private int solveX;
-	private int solveY;
-	private int solveWidth;
-	private int solveHeight;
-	private int binX;
-	private int binY;
-	private int binWidth;
-	private int binHeight;
-	
-	private int amplitude;
-	
-	private int[] grid = new int[9 * 9];
-	private boolean[] redCells = new boolean[9 * 9];
-	private boolean[] solvedCells = new boolean[9 * 9];
-
-	private int selectedNumber = -1;
-	private int selectedIndex = -1;
-	
-	//TODO: Fix potential threading problems
-	private volatile boolean running = false;
-	private volatile boolean surfaceValid = false;	
-	private float inputX;
-	private float inputY;
-	private int inputEvent;
-		
-	private Thread thread;
-	private Object lock = new Object();
-	private Context context;
-	private Typeface font;
-	private SurfaceHolder holder;
-	private Paint paint;
-	
-	private Bitmap recycleBin;
-	
-	public Grid(SurfaceHolder holder, Context context)
-	{
-		this.holder = holder;
-		this.context = context;
-	}
-	
-	public void start()
-	{
-		surfaceValid = true;
-		running = true;
-		thread = new Thread(this);
-		thread.start();
-	}
-	
-	public void stop()
-	{
-		surfaceValid = false;
-		running = false;
-
-		while (true) {
-			try {
-				thread.join();
-				break;
-			} catch (Exception e) {}
-		}
-	}
-	
-	public synchronized void input(float x, float y, int e)
-	{
-		synchronized (lock)
-		{
-			inputX = x;
-			inputY = y;
-			inputEvent = e;
-		}
-	}
-	
-	public void run()
-	{
-		init();
-		
-		Canvas canvas = null;
-		
-		float inX = -1;
-		float inY = -1;
-		int inEvent = -1;
-		
-		while (running)
-		{
-			synchronized (lock)
-			{
-				inX = inputX;
-				inY = inputY;
-				inEvent = inputEvent;
-			
-				inputX = -1;
-				inputY = -1;
-				inputEvent = -1;
-			}
-			
-			if (inEvent != -1)
-			{
-				processInput(inX, inY, inEvent);
-
-				if (selectedIndex != -1 && selectedNumber != -1 && selectedNumber != 10)
-					placeNumber(selectedIndex, selectedNumber);
-
-				render();
-				
-				selectedNumber = -1;
-			}
-		}
-	}
-	
-	private void init()
-	{
-		int i, j, k;
-		int left, top;
-		int height;
-		int screenWidth = 0;
-		int screenHeight = 0;
-		Canvas c = null;
-		
-		for (i = 0; i < 81; i++)
-			grid[i] = 0;
-		
-		while (running)
-		{
-			c = lockCanvas();
-			if (c != null)
-			{
-				screenWidth = c.getWidth();
-				screenHeight = c.getHeight();
-				holder.unlockCanvasAndPost(c);
-				break;
-			}
-		}
-		
-		calculateDimensions(screenWidth);
-		height = gridSize + 6 * blockSpacing + 4 * cellSize;
-		if (screenHeight < height)
-			calculateDimensions(screenWidth * screenHeight / height);
-					
-		gridX = (screenWidth - gridSize) / 2;
-		gridY = (screenHeight - gridSize - cellSize - blockSpacing) / 2;
-		keyPadY = gridY + gridSize + (screenHeight - gridY - gridSize - 2 * cellSize - blockSpacing) / 2;
-		solveX = gridX + 3 * cellSize + 2 * spacing + blockSpacing;
-		solveY = (gridY - cellSize) / 2;
-		solveWidth = 3 * cellSize + 2 * spacing;
-		solveHeight = cellSize;
-		
-		amplitude = (int) (relAmplitude * solveWidth);
-		
-		while (running)
-		{
-			try
-			{
-				font = Typeface.createFromAsset(context.getAssets(), "helvetica-neue-thin.otf");
-				recycleBin = BitmapFactory.decodeStream(context.getAssets().open("recycle-bin.png"));
-				
-				binWidth = cellSize;
-				binHeight = recycleBin.getHeight() * binWidth / recycleBin.getWidth();
-				binX = screenWidth - binWidth;
-				binY = (int) (0.005f * screenHeight);
-	
-				recycleBin = Bitmap.createScaledBitmap(recycleBin, binWidth, binHeight, true);
-				c = new Canvas(recycleBin);
-				c.drawColor(cellColor, Mode.SRC_ATOP);
-				break;
-			}
-			catch (Exception e) {}
-		}
-				
-		Bitmap cell = Bitmap.createBitmap(cellSize, cellSize, Bitmap.Config.ARGB_8888);
-		Bitmap keyPad = Bitmap.createBitmap(gridSize, 2 * cellSize + blockSpacing, Bitmap.Config.ARGB_8888);
-		Bitmap solveBtn = Bitmap.createBitmap(solveWidth, cellSize, Bitmap.Config.ARGB_8888);
-		
-		paint = new Paint();
-		paint.setTypeface(font);
-		paint.setTextAlign(Paint.Align.CENTER);
-		paint.setAntiAlias(true);
-		setTextSize("0", 0.5f * cellSize, paint);
-
-		c = new Canvas(cell);
-		paint.setColor(cellColor);
-		c.drawRect(0, 0, cellSize, cellSize, paint);
-		
-		// Draw key pad rectangles
-		c = new Canvas(keyPad);
-		paint.setColor(keyPadColor);
-		
-		left = 0;
-		top = cellSize + blockSpacing;
-
-		for (i = 0; i < 3; i++)
-		{
-			for (j = 0; j < 3; j++)
-			{
-				c.drawRect(left, top, left + cellSize, top + cellSize, paint);
-				left += cellSize + spacing;
-			}
-			left += blockSpacing - spacing;
-		}
-		
-		// Draw clear button on key pad
-		paint.setColor(keyPadColor);
-		left = 3 * cellSize + 2 * spacing + blockSpacing;
-		c.drawRect(left, 0, left + 3 * cellSize + 2 * spacing, cellSize, paint);
-		
-		paint.setColor(keyPadNumColor);
-		c.drawText("CLEAR", 9 * cellSize / 2 + 3 * spacing + blockSpacing, 3 * cellSize / 4, paint);
-		
-		// Draw numbers on key pad
-		int counter = 1;
-		
-		left = cellSize / 2;
-		top = cellSize + blockSpacing + 3 * cellSize / 4;
-		
-		for (i = 0; i < 3; i++)
-		{
-			for (j = 0; j < 3; j++)
-			{
-				c.drawText(String.valueOf(counter), left, top, paint);
-				counter++;
-				left += cellSize + spacing;
-			}
-			
-			left += blockSpacing - spacing;
-		}
-		
-		//Draw solve button
-		c = new Canvas(solveBtn);
-		c.drawColor(keyPadColor);
-		c.drawText("SOLVE", solveBtn.getWidth() / 2, 3 * solveBtn.getHeight() / 4, paint);
-		
-		// Intro Animation
-		int[] xi = new int[9];
-		int[] xf = new int[9];
-		int[] x = new int[9];
-		
-		int sby = 0;
-		int kpy = 0;
-		int bby = 0;
-		
-		counter = 0;
-		int finalX = gridX;
-		
-		for (i = 0; i < 3; i++)
-		{
-			for (j = 0; j < 3; j++)
-			{
-				xf[counter] = finalX;
-				finalX += cellSize + spacing;
-				counter++;
-			}
-			finalX += blockSpacing - spacing;
-		}
-		
-		int deltaX = xf[8] + cellSize;
-		
-		for (i = 0; i < 9; i++)
-			xi[i] = xf[i] - deltaX;
-		
-		boolean running = true;
-		
-		long accumulator = 0L;
-		long frameTime = 1000000000L / 60;
-		long now = System.nanoTime();
-		long lastTime = now;
-		
-		float t = 0.0f;
-		float delta = frameTime / 1000000000.0f;
-		
-		int reflectionOffset = screenWidth - cellSize;
-		if (cellSize % 2 != screenHeight % 2)
-			reflectionOffset--;
-		
-		paint.setColor(cellColor);
-		
-		while (running)
-		{	
-			now = System.nanoTime();
-			accumulator += now - lastTime;
-			lastTime = now;
-			
-			if (accumulator >= frameTime)
-			{	
-				accumulator -= frameTime * (accumulator / frameTime);
-				
-				float fraction;
-				
-				for (i = 0; i < 9; i++)
-				{
-					fraction = (t - (8 - i) * animDelay) / (animTime - 8 * animDelay);
-					x[i] = (int) (deltaX * fraction * (2 - fraction) + xi[i]);
-					if (fraction >= 1)
-					{
-						if (i == 0)
-							running = false;
-						x[i] = xf[i];
-					}
-				}
-				
-				fraction = t / animTime;
-
-				sby = (int) ((solveY + cellSize) * fraction * (2 - fraction) - cellSize);
-				kpy = (int) ((keyPadY - screenHeight) * fraction * (2 - fraction) + screenHeight);
-				bby = (int) ((binHeight + binY) * fraction * (2 - fraction) - binHeight);
-
-				if (fraction >= 1)
-				{
-					sby = solveY;
-					kpy = keyPadY;
-				}
-					
-				t += delta;
-				
-				c = null;
-				if (surfaceValid) c = holder.lockCanvas();
-				if (c != null)
-				{
-					c.drawColor(bgColor);
-					
-					top = gridY;
-					boolean fromRight = false;
-					
-					for (i = 0; i < 3; i++)
-					{
-						for (j = 0; j < 3; j++)
-						{
-							for (k = 0; k < 9; k++)
-							{
-								left = x[k];		
-								if (fromRight)
-									left = reflectionOffset - left;
-								c.drawRect(left, top, left + cellSize, top + cellSize, paint);
-							}
-							fromRight = !fromRight;	
-							top += cellSize + spacing;
-						}
-						top += blockSpacing - spacing;
-					}
-					
-					c.drawBitmap(solveBtn, solveX, sby, null);
-					c.drawBitmap(keyPad, gridX, kpy, null);
-					c.drawBitmap(recycleBin, binX, bby, null);
-					
-					holder.unlockCanvasAndPost(c);
-				}
-			}
-		}
-
-		cell.recycle();
-		keyPad.recycle();
-		solveBtn.recycle();
-		c = null;
-	}
-	
-	private void calculateDimensions(int screenWidth)
-	{
-		gridSize = (int) (relGridSize * screenWidth);
-		spacing = (int) (relSpacing * screenWidth);
-		spacing = spacing < 1 ? 1 : spacing;
-		blockSpacing = (int) (blockSpacingFactor * spacing);
-		cellSize = (gridSize - 6 * spacing - 2 * blockSpacing) / 9;
-		gridSize = 9 * cellSize + 6 * spacing + 2 * blockSpacing;
-	}
-	
-	private void render()
-	{
-		Canvas canvas = lockCanvas();
-		if (canvas == null) return;
-
-		canvas.drawColor(bgColor);
-		
-		int i, j, k, w;
-		int counter = 0;
-		int number = 0;
-		
-		int cellCenterX = cellSize / 2;
-		int cellCenterY = 3 * cellSize / 4;
-		
-		int x = gridX;
-		int y = gridY;
-		
-		for (i = 0; i < 3; i++)
-		{
-			for (j = 0; j < 3; j++)
-			{
-				for (k = 0; k < 3; k++)
-				{
-					for (w = 0; w < 3; w++)
-					{
-						if (counter == selectedIndex)
-							paint.setColor(selectColor);
-						else
-							paint.setColor(cellColor);
-						
-						canvas.drawRect(x, y, x + cellSize, y + cellSize, paint);
-						
-						if (redCells[counter])
-						{
-							paint.setColor(0x99FF0000);
-							canvas.drawRect(x, y, x + cellSize, y + cellSize, paint);
-						}
-							
-						number = grid[counter];
-						if (number != 0)
-						{
-							if (solvedCells[counter])
-								paint.setColor(solvedNumColor);
-							else
-								paint.setColor(keyPadNumColor);
-							
-							canvas.drawText(String.valueOf(number), x + cellCenterX, y + cellCenterY, paint);
-						}
-							
-						x += cellSize + spacing;
-						counter++;
-					}
-					
-					x += blockSpacing - spacing;
-				}
-			
-				x -= gridSize + blockSpacing;
-				y += cellSize + spacing;
-			}
-			
-			y += blockSpacing - spacing;
-		}
-		
-		// Draw key pad				
-		x = gridX;
-		y = keyPadY + cellSize + blockSpacing;
-		counter = 1;
-
-		for (i = 0; i < 3; i++)
-		{
-			for (j = 0; j < 3; j++)
-			{
-				paint.setColor(keyPadColor);
-				canvas.drawRect(x, y, x + cellSize, y + cellSize, paint);
-				
-				paint.setColor(keyPadNumColor);
-				canvas.drawText(String.valueOf(counter), x + cellCenterX, y + cellCenterY, paint);
-				
-				x += cellSize + spacing;
-				counter++;
-			}
-			
-			x += blockSpacing - spacing;
-		}
-		
-		// Draw clear button
-		paint.setColor(keyPadColor);
-		x = gridX + 3 * cellSize + 2 * spacing + blockSpacing;
-		canvas.drawRect(x, keyPadY, x + 3 * cellSize + 2 * spacing, keyPadY + cellSize, paint);
-		
-		paint.setColor(keyPadNumColor);
-		canvas.drawText("CLEAR", x + 3 * cellSize / 2 + spacing, keyPadY + 3 * cellSize / 4, paint);
-		
-		// Draw recycle bin
-		canvas.drawBitmap(recycleBin, binX, binY, null);
-		
-		// Draw solve button
-		if (selectedNumber == 10)
-		{
-			paint.setColor(keyPadColor);
-			canvas.drawRect(solveX, solveY, solveX + solveWidth, solveY + solveHeight, paint);
-		
-			paint.setColor(keyPadNumColor);
-			canvas.drawText("SOLVE", solveX + solveWidth / 2, solveY + 3 * solveHeight / 4, paint);	
-			holder.unlockCanvasAndPost(canvas);
-			shakeSolveButton();		
-		}
-		else
-		{
-			paint.setColor(keyPadColor);
-			canvas.drawRect(solveX, solveY, solveX + solveWidth, solveY + solveHeight, paint);
-		
-			paint.setColor(keyPadNumColor);
-			canvas.drawText("SOLVE", solveX + solveWidth / 2, solveY + 3 * solveHeight / 4, paint);
-			holder.unlockCanvasAndPost(canvas);
-		}	
-	}
-	
-	private void shakeSolveButton()
-	{
-		Canvas canvas;
-		
-		boolean running = true;
-		
-		long accumulator = 0L;
-		long frameTime = 1000000000L / 60;
-		long now = System.nanoTime();
-		long lastTime = now;
-		
-		float t = 0.0f;
-		float delta = frameTime / 1000000000.0f;
-		float x = 0.0f;
-		
-		while (running)
-		{
-			now = System.nanoTime();
-			accumulator += now - lastTime;
-			lastTime = now;
-			
-			if (accumulator >= frameTime)
-			{	
-				accumulator -= frameTime * (accumulator / frameTime);
-				
-				x = amplitude * (1 - t / shakeAnimTime) * (float) Math.sin(2 * Math.PI * frequency * t);
-				t += delta;
-				
-				if (t >= shakeAnimTime)
-					running = false;
-				
-				canvas = null;
-				if (surfaceValid) canvas = holder.lockCanvas();
-				if (canvas != null)
-				{
-					canvas.clipRect(solveX - amplitude, solveY, solveX + solveWidth + amplitude, solveY + solveHeight);
-					
-					canvas.drawColor(bgColor);
-					paint.setColor(keyPadColor);
-					canvas.drawRect(solveX + x, solveY, solveX + x + solveWidth, solveY + solveHeight, paint);
-					paint.setColor(keyPadNumColor);
-					canvas.drawText("SOLVE", solveX + solveWidth / 2 + x, solveY + 3 * solveHeight / 4, paint);
-					
-					holder.unlockCanvasAndPost(canvas);
-				}
-			}
-		}
-	}
-	
-	// TODO: Finish this
-	private void placeNumber(int index, int number)
-	{
-		int i, j, k, w, u, v;
-		int gridOffset;
-		int squareOffset;
-		int squareStart;
-		
-		grid[index] = number;
-		solvedCells[index] = false;
-		
-		for (i = 0; i < 81; i++)
-			redCells[i] = false;
-			
-		boolean[] counters = new boolean[9];
-		
-		for (i = 0; i < 9; i++)
-		{
-			for (j = 0; j < 9; j++)
-				counters[j] = false;
-			
-			for (j = 0; j < 9; j++)
-			{
-				if (grid[j + i * 9] != 0)
-				{
-					if (counters[grid[j + i * 9] - 1])
-					{
-						for (k = 0; k < 9; k++)
-							redCells[k + i * 9] = true;
-						break;
-					}
-					else
-						counters[grid[j + i * 9] - 1] = true;
-				}
-			}
-		}
-		
-		for (i = 0; i < 9; i++)
-		{
-			for (j = 0; j < 9; j++)
-				counters[j] = false;
-			
-			for (j = 0; j < 9; j++)
-			{
-				if (grid[i + j * 9] != 0)
-				{
-					if (counters[grid[i + j * 9] - 1])
-					{
-						for (k = 0; k < 9; k++)
-							redCells[i + k * 9] = true;
-						break;
-					}
-					else
-						counters[grid[i + j * 9] - 1] = true;
-				}
-			}
-		}
-		
-		gridOffset = 0;
-		
-		for (i = 0; i < 3; i++)
-		{
-			for (j = 0; j < 3; j++)
-			{
-				for (k = 0; k < 9; k++)
-					counters[k] = false;
-			
-				squareStart = gridOffset;
-				
-				for (k = 0; k < 3; k++)
-				{
-					for (w = 0; w < 3; w++)
-					{
-						if (grid[gridOffset] != 0)
-						{
-							if (counters[grid[gridOffset] - 1])
-							{
-								squareOffset = squareStart;
-								
-								for (u = 0; u < 3; u++)
-								{
-									for (v = 0; v < 3; v++)
-									{
-										redCells[squareOffset] = true;
-										squareOffset++;
-									}
-									
-									squareOffset += 6;
-								}
-							}
-							else
-								counters[grid[gridOffset] - 1] = true;
-						}
-						
-						gridOffset++;
-					}
-					
-					gridOffset += 6;
-				}
-				
-				gridOffset -= 24;
-			}
-			
-			gridOffset += 18;
-		}
-	}
-
-	private void clearGrid()
-	{
-		int i;
-		for (i = 0; i < 81; i++)
-		{
-			grid[i] = 0;
-			redCells[i] = false;
-			solvedCells[i] = false;
-		}
-	}
-	
-	private boolean solve()
-	{
-		int i;
-
-		int[] newGrid = new int[9 * 9];
-		
-		for (i = 0; i < 81; i++)
-			newGrid[i] = grid[i];
-		
-		SudokuSolver solver = new SudokuSolver(newGrid);
-		
-		boolean result = solver.solve();
-			
-		if (result)
-		{
-			for (i = 0; i < 81; i++)
-				if (newGrid[i] != grid[i])
-					solvedCells[i] = true;
-
-			grid = newGrid;
-		}
-
-		return result;
-	}
-	
-	private void setTextSize(String text, float height, Paint paint)
-	{
-		final float testTextSize = 48.0f;
-		paint.setTextSize(testTextSize);
-		
-		Rect bounds = new Rect();
-		paint.getTextBounds(text, 0, text.length(), bounds);
-		
-		float desiredTextSize = testTextSize * height / bounds.height();
-		paint.setTextSize(desiredTextSize);
-	}
-
-	private Canvas lockCanvas()
-	{
-		if (surfaceValid)
-			return holder.lockCanvas();
-		else
-			return null;
-	}
-	
-	//TODO: Clean up
-	private void processInput (float x, float y, int e)
-	{
-		if (e != MotionEvent.ACTION_DOWN)
-			return;
-
-		if (x >= binX && x < binX + binWidth)
-			if (y >= binY && y < binY + binHeight)
-				clearGrid();
-		
-		x -= gridX;
-		
-		if (x >= 0 && x < gridSize)
-		{
-			if (y >= solveY && y < solveY + solveHeight)
-			{
-				if (x >= solveX && x < solveX + solveWidth)
-				{
-					if (!solve())
-						selectedNumber = 10;
-				}
-			}
-				
-			else if (y >= gridY && y < gridY + gridSize)
-			{
-				y -= gridY;
-				intersectsCell(x, y);
-			}
-
-		
-			else if (y >= keyPadY && y < keyPadY + 2 * cellSize + blockSpacing)
-			{
-				y -= keyPadY;
-				if (y >= 0 && y <= cellSize)
-				{
-					if (x >= 3 * cellSize + 2 * spacing + blockSpacing && x < 6 * cellSize + 4 * spacing + blockSpacing)
-						selectedNumber = 0;
-				}
-				if (y >= cellSize + blockSpacing)
-				{
-					y -= cellSize + blockSpacing;
-					intersectsNumber(x);
-				}
-			}
-		}
-	}
-	
-	//TODO: Fix this
-	private void intersectsCell(float x, float y)
-	{
-		int h1 = 3 * cellSize + 2 * spacing + blockSpacing;
-		int h2 = cellSize + spacing;
-		
-		int m = spacing - blockSpacing;
-		
-		int xIndex = ((int) x + spacing + (((int) x + blockSpacing) / h1) * m) / h2;
-		int yIndex = ((int) y + spacing + (((int) y + blockSpacing) / h1) * m) / h2;
-	
-		selectedIndex = xIndex + yIndex * 9;
-	}
-
-	//TODO: Optimize this too
-	private void intersectsNumber(float x)
-	{
-		if (x < 3 * cellSize + 2 * spacing) {
-			if (x < cellSize)
-				selectedNumber = 1;
-			else if (x < 2 * cellSize + spacing)
-				selectedNumber = 2;
-			else
-				selectedNumber = 3;
-		} else if (x < 6 * cellSize + 4 * spacing + blockSpacing) {
-			x -= 3 * cellSize + 2 * spacing + blockSpacing;
-			if (x < cellSize)
-				selectedNumber = 4;
-			else if (x < 2 * cellSize + spacing)
-				selectedNumber = 5;
-			else
-				selectedNumber = 6;
-		} else {
-			x -= 6 * cellSize + 4 * spacing + 2 * blockSpacing;
-			if (x < cellSize)
-				selectedNumber = 7;
-			else if (x < 2 * cellSize + spacing)
-				selectedNumber = 8;
-			else
-				selectedNumber = 9;
-		}
-	}
-}
+package com.saidalattrach.sudokusolver;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff.Mode;
+import android.graphics.Rect;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+
+import java.util.concurrent.Future;
+
+public class Grid implements Runnable
+{
+	private static final float animTime = 1.0f;
+	private static final float animDelay = 0.075f;
+	private static final float shakeAnimTime = 0.4f;
+	private static final float relAmplitude = 0.15f;
+	private static final float frequency = 6.0f;
+	private static final long frameTime = 1000000000L / 60;
+	private static final int bgColor = 0xFF303030;
+	private static final int cellColor = 0xFFFFFFFF;
+	private static final int selectColor = 0xFFB8B8B8;
+	private static final int keyPadColor = 0xFF808080;
+	private static final int keyPadNumColor = 0xFF000000;
+	private static final int solvedNumColor = 0xFF1F75FE;
+	private static final SolverType solverType = SolverType.BACKTRACKING;
+	// A puzzle that takes longer than this is given up on like one without
+	// a solution
+	private static final long solveTimeout = 5000000000L;
+	// Time each step of the busy indicator is shown
+	private static final long stepTime = 125000000L;
+	// Touches that can wait for the render thread, far more than anyone taps
+	// in a frame
+	private static final int inputCapacity = 256;
+	private static final String[] numberLabels = { "", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+	
+	private int amplitude;
+	
+	private int[] grid = new int[9 * 9];
+	private ConflictTracker conflicts = new ConflictTracker();
+	private boolean[] solvedCells = new boolean[9 * 9];
+
+	private int selectedNumber = -1;
+	private int selectedIndex = -1;
+
+	// Solving happens in the background, the render thread polls the result
+	// and swaps the solved grid in between frames. The grid being solved
+	// and the one shown trade places when a solution comes in
+	private AsyncSolver solver = new AsyncSolver(solverType);
+	private Future<SolveResult> lastSolve = null;
+	private boolean solving = false;
+	private int[] solvingGrid = new int[9 * 9];
+	private CancellationToken solveToken = new CancellationToken();
+	private long solveStart;
+	private SolveBudget solveBudget = new SolveBudget(solveTimeout, 0, solveToken, new ProgressListener()
+	{
+		// Only used on the solver's thread
+		private long lastPost = System.nanoTime() - frameTime;
+
+		// Only tells the render thread the solve is still going, the busy
+		// indicator moves with time
+		public void onProgress(long nodes)
+		{
+			long now = System.nanoTime();
+
+			// Hard puzzles report progress far more often than frames are
+			// drawn, so the render thread is woken at most once a frame
+			if (now - lastPost < frameTime)
+				return;
+
+			lastPost = now;
+			scheduler.post(RenderScheduler.SOLVE_PROGRESS);
+		}
+	});
+	private Runnable solveDone = new Runnable()
+	{
+		public void run()
+		{
+			scheduler.post(RenderScheduler.SOLVE_DONE);
+		}
+	};
+
+	// The render thread sleeps on it until there is something to draw
+	private RenderScheduler scheduler = new RenderScheduler();
+	
+	//TODO: Fix potential threading problems
+	private volatile boolean running = false;
+	private volatile boolean surfaceValid = false;	
+	// Touches from the UI thread, in order
+	private InputRingBuffer inputs = new InputRingBuffer(inputCapacity);
+	private InputRingBuffer.Handler inputHandler = new InputRingBuffer.Handler()
+	{
+		public void onInput(float x, float y, int e)
+		{
+			processInput(x, y, e);
+
+			if (selectedIndex != -1 && selectedNumber != -1 && selectedNumber != 10)
+				placeNumber(selectedIndex, selectedNumber);
+
+			selectedNumber = -1;
+		}
+	};
+		
+	private Thread thread;
+	private Context context;
+	private Typeface font;
+	private SurfaceHolder holder;
+	private Paint paint;
+	
+	private Bitmap recycleBin;
+	private Bitmap solveButton;
+
+	// The background, the empty cells, the keypad and the recycle bin, drawn
+	// once in init for the frames to copy from
+	private Bitmap staticLayer;
+	private Rect staticRect = new Rect();
+
+	// Frames only redraw what the board renderer finds changed
+	private BoardRenderer board = new BoardRenderer(9 * 9);
+	private CanvasCommands commands = new CanvasCommands();
+	private Rect dirty = new Rect();
+	private GridLayout layout = new GridLayout();
+
+	// Paces the intro and the shake, shortening them on a slow device
+	private FrameScheduler frames = new FrameScheduler(frameTime);
+	private ShakeAnimation shake = new ShakeAnimation();
+	
+	public Grid(SurfaceHolder holder, Context context)
+	{
+		this.holder = holder;
+		this.context = context;
+	}
+	
+	public void start()
+	{
+		surfaceValid = true;
+		running = true;
+		thread = new Thread(this);
+		thread.start();
+	}
+	
+	public void stop()
+	{
+		surfaceValid = false;
+		running = false;
+		scheduler.post(RenderScheduler.STOP);
+
+		while (true) {
+			try {
+				thread.join();
+				break;
+			} catch (Exception e) {}
+		}
+
+		cancelSolve();
+	}
+	
+	// Only called from the UI thread
+	public void input(float x, float y, int e)
+	{
+		inputs.offer(x, y, e);
+		scheduler.post(RenderScheduler.INPUT);
+	}
+	
+	public void run()
+	{
+		init();
+		
+		while (running)
+		{
+			// Sleep until there is input, or news of the solve to draw
+			scheduler.await();
+
+			// Every touch since the last frame is handled before drawing,
+			// and a solve that is running moves the busy indicator
+			if (inputs.drain(inputHandler) > 0 || solving)
+			{
+				finishSolve();
+				render();
+				
+				selectedNumber = -1;
+			}
+		}
+	}
+	
+	private void init()
+	{
+		int i;
+		int left, top;
+		int screenWidth = 0;
+		int screenHeight = 0;
+		Canvas c = null;
+		
+		for (i = 0; i < 81; i++)
+			grid[i] = 0;
+
+		conflicts.clear();
+		
+		while (running)
+		{
+			c = lockCanvas();
+			if (c != null)
+			{
+				screenWidth = c.getWidth();
+				screenHeight = c.getHeight();
+				holder.unlockCanvasAndPost(c);
+				break;
+			}
+		}
+		
+		while (running)
+		{
+			try
+			{
+				font = Typeface.createFromAsset(context.getAssets(), "helvetica-neue-thin.otf");
+				recycleBin = BitmapFactory.decodeStream(context.getAssets().open("recycle-bin.png"));
+				
+				layout.layout(screenWidth, screenHeight, recycleBin.getWidth(), recycleBin.getHeight());
+	
+				recycleBin = Bitmap.createScaledBitmap(recycleBin, layout.binWidth, layout.binHeight, true);
+				c = new Canvas(recycleBin);
+				c.drawColor(cellColor, Mode.SRC_ATOP);
+				break;
+			}
+			catch (Exception e) {}
+		}
+		
+		amplitude = (int) (relAmplitude * layout.solveWidth);
+				
+		Bitmap cell = Bitmap.createBitmap(layout.cellSize, layout.cellSize, Bitmap.Config.ARGB_8888);
+		Bitmap keyPad = Bitmap.createBitmap(layout.gridSize, layout.keyPadHeight, Bitmap.Config.ARGB_8888);
+		Bitmap solveBtn = Bitmap.createBitmap(layout.solveWidth, layout.cellSize, Bitmap.Config.ARGB_8888);
+		
+		paint = new Paint();
+		paint.setTypeface(font);
+		paint.setTextAlign(Paint.Align.CENTER);
+		paint.setAntiAlias(true);
+		setTextSize("0", 0.5f * layout.cellSize, paint);
+
+		c = new Canvas(cell);
+		paint.setColor(cellColor);
+		c.drawRect(0, 0, layout.cellSize, layout.cellSize, paint);
+		
+		// Draw key pad rectangles, the key pad going at gridX, keyPadY
+		c = new Canvas(keyPad);
+		paint.setColor(keyPadColor);
+		
+		for (i = GridLayout.KEYS; i < GridLayout.KEYS + 10; i++)
+			c.drawRect(layout.lefts[i] - layout.gridX, layout.tops[i] - layout.keyPadY,
+					layout.rights[i] - layout.gridX, layout.bottoms[i] - layout.keyPadY, paint);
+		
+		// Draw clear button and numbers on key pad
+		paint.setColor(keyPadNumColor);
+		
+		for (i = GridLayout.KEYS; i < GridLayout.KEYS + 10; i++)
+		{
+			left = (layout.lefts[i] + layout.rights[i]) / 2 - layout.gridX;
+			top = layout.tops[i] - layout.keyPadY + 3 * layout.cellSize / 4;
+			c.drawText(i == GridLayout.KEYS ? "CLEAR" : numberLabels[i - GridLayout.KEYS], left, top, paint);
+		}
+		
+		//Draw solve button
+		c = new Canvas(solveBtn);
+		c.drawColor(keyPadColor);
+		c.drawText("SOLVE", solveBtn.getWidth() / 2, 3 * solveBtn.getHeight() / 4, paint);
+		
+		// Intro Animation
+		IntroAnimation intro = new IntroAnimation();
+
+		// The first row of cells shows where each column ends up
+		for (i = 0; i < 9; i++)
+			intro.xf[i] = layout.lefts[i];
+		
+		intro.deltaX = intro.xf[8] + layout.cellSize;
+		
+		for (i = 0; i < 9; i++)
+			intro.xi[i] = intro.xf[i] - intro.deltaX;
+		
+		intro.reflectionOffset = screenWidth - layout.cellSize;
+		if (layout.cellSize % 2 != screenHeight % 2)
+			intro.reflectionOffset--;
+
+		intro.screenHeight = screenHeight;
+		intro.solveBtn = solveBtn;
+		intro.keyPad = keyPad;
+		
+		paint.setColor(cellColor);
+		frames.play(intro, animTime);
+
+		if (staticLayer != null)
+			staticLayer.recycle();
+
+		staticLayer = Bitmap.createBitmap(screenWidth, screenHeight, Bitmap.Config.ARGB_8888);
+		c = new Canvas(staticLayer);
+		c.drawColor(bgColor);
+		paint.setColor(cellColor);
+
+		for (i = 0; i < 81; i++)
+			c.drawRect(layout.lefts[i], layout.tops[i], layout.rights[i], layout.bottoms[i], paint);
+
+		c.drawBitmap(keyPad, layout.gridX, layout.keyPadY, null);
+		c.drawBitmap(recycleBin, layout.binX, layout.binY, null);
+
+		if (solveButton != null)
+			solveButton.recycle();
+
+		solveButton = solveBtn;
+
+		board.setLayout(screenWidth, screenHeight, layout.lefts, layout.tops, layout.cellSize,
+				layout.lefts[GridLayout.SOLVE], layout.tops[GridLayout.SOLVE],
+				layout.rights[GridLayout.SOLVE], layout.bottoms[GridLayout.SOLVE]);
+
+		cell.recycle();
+		keyPad.recycle();
+		c = null;
+	}
+
+	private void render()
+	{
+		int i;
+
+		for (i = 0; i < 81; i++)
+			board.setCell(i, grid[i], i == selectedIndex, conflicts.isConflict(i), solvedCells[i]);
+
+		board.setSolveStep(solving ? (int) ((System.nanoTime() - solveStart) / stepTime % 4) : -1);
+
+		drawDirty();
+
+		if (selectedNumber == 10)
+		{
+			shakeSolveButton();
+
+			// The shake locks the whole surface, so what it did not draw over
+			// is undefined
+			board.invalidateAll();
+			drawDirty();
+		}
+	}
+
+	// Redraws what changed since the last frame, and nothing else
+	private void drawDirty()
+	{
+		if (!board.isDirty())
+			return;
+
+		dirty.set(board.getDirtyLeft(), board.getDirtyTop(), board.getDirtyRight(), board.getDirtyBottom());
+
+		// The surface may grow the rectangle to what its buffer is missing
+		Canvas canvas = lockCanvas(dirty);
+		if (canvas == null) return;
+
+		commands.canvas = canvas;
+		board.draw(commands, dirty.left, dirty.top, dirty.right, dirty.bottom);
+		holder.unlockCanvasAndPost(canvas);
+	}
+	
+	private class CanvasCommands implements RenderCommands
+	{
+		Canvas canvas;
+
+		public void drawStatic(int left, int top, int right, int bottom)
+		{
+			staticRect.set(left, top, right, bottom);
+			canvas.drawBitmap(staticLayer, staticRect, staticRect, null);
+		}
+
+		public void drawCell(int left, int top, int size, int number,
+				boolean selected, boolean conflict, boolean solved)
+		{
+			paint.setColor(selected ? selectColor : cellColor);
+			canvas.drawRect(left, top, left + size, top + size, paint);
+
+			if (conflict)
+			{
+				paint.setColor(0x99FF0000);
+				canvas.drawRect(left, top, left + size, top + size, paint);
+			}
+
+			if (number != 0)
+			{
+				paint.setColor(solved ? solvedNumColor : keyPadNumColor);
+				canvas.drawText(numberLabels[number], left + size / 2, top + 3 * size / 4, paint);
+			}
+		}
+
+		public void drawSolveButton(int left, int top, int right, int bottom, int step)
+		{
+			int x;
+
+			if (step < 0)
+			{
+				canvas.drawBitmap(solveButton, left, top, null);
+				return;
+			}
+
+			paint.setColor(keyPadColor);
+			canvas.drawRect(left, top, right, bottom, paint);
+
+			// A quarter of the button lights up, one quarter further every
+			// step of the search
+			paint.setColor(selectColor);
+			x = left + step * (right - left) / 4;
+			canvas.drawRect(x, bottom - layout.spacing * 2, x + (right - left) / 4, bottom, paint);
+
+			paint.setColor(keyPadNumColor);
+			canvas.drawText("SOLVING", (left + right) / 2, top + 3 * (bottom - top) / 4, paint);
+		}
+	}
+
+	private void shakeSolveButton()
+	{
+		frames.play(shake, shakeAnimTime);
+	}
+
+	// Slides the cells in from both sides while the solve button, key pad
+	// and recycle bin come in from the edges of the screen
+	private class IntroAnimation implements FrameScheduler.Animation
+	{
+		int[] xi = new int[9];
+		int[] xf = new int[9];
+		int[] x = new int[9];
+
+		int deltaX;
+		int reflectionOffset;
+		int screenHeight;
+
+		Bitmap solveBtn;
+		Bitmap keyPad;
+
+		public void drawFrame(float t)
+		{
+			int i, j, k;
+			int left, top;
+			int sby, kpy, bby;
+			float fraction;
+			boolean fromRight = false;
+			Canvas c = null;
+
+			for (i = 0; i < 9; i++)
+			{
+				fraction = (t - (8 - i) * animDelay) / (animTime - 8 * animDelay);
+				x[i] = (int) (deltaX * fraction * (2 - fraction) + xi[i]);
+				if (fraction >= 1)
+					x[i] = xf[i];
+			}
+			
+			fraction = t / animTime;
+
+			sby = (int) ((layout.solveY + layout.cellSize) * fraction * (2 - fraction) - layout.cellSize);
+			kpy = (int) ((layout.keyPadY - screenHeight) * fraction * (2 - fraction) + screenHeight);
+			bby = (int) ((layout.binHeight + layout.binY) * fraction * (2 - fraction) - layout.binHeight);
+
+			if (fraction >= 1)
+			{
+				sby = layout.solveY;
+				kpy = layout.keyPadY;
+				bby = layout.binY;
+			}
+			
+			if (surfaceValid) c = holder.lockCanvas();
+			if (c == null)
+				return;
+
+			c.drawColor(bgColor);
+			
+			top = layout.gridY;
+			
+			for (i = 0; i < 3; i++)
+			{
+				for (j = 0; j < 3; j++)
+				{
+					for (k = 0; k < 9; k++)
+					{
+						left = x[k];		
+						if (fromRight)
+							left = reflectionOffset - left;
+						c.drawRect(left, top, left + layout.cellSize, top + layout.cellSize, paint);
+					}
+					fromRight = !fromRight;	
+					top += layout.cellSize + layout.spacing;
+				}
+				top += layout.blockSpacing - layout.spacing;
+			}
+			
+			c.drawBitmap(solveBtn, layout.solveX, sby, null);
+			c.drawBitmap(keyPad, layout.gridX, kpy, null);
+			c.drawBitmap(recycleBin, layout.binX, bby, null);
+			
+			holder.unlockCanvasAndPost(c);
+		}
+	}
+
+	// Shakes the solve button from side to side, dying down
+	private class ShakeAnimation implements FrameScheduler.Animation
+	{
+		public void drawFrame(float t)
+		{
+			Canvas canvas = null;
+			int left = layout.solveX;
+			int top = layout.solveY;
+			int width = layout.solveWidth;
+			int height = layout.solveHeight;
+			float x = amplitude * (1 - t / shakeAnimTime) * (float) Math.sin(2 * Math.PI * frequency * t);
+			
+			if (surfaceValid) canvas = holder.lockCanvas();
+			if (canvas == null)
+				return;
+
+			canvas.clipRect(left - amplitude, top, left + width + amplitude, top + height);
+			
+			canvas.drawColor(bgColor);
+			paint.setColor(keyPadColor);
+			canvas.drawRect(left + x, top, left + x + width, top + height, paint);
+			paint.setColor(keyPadNumColor);
+			canvas.drawText("SOLVE", left + width / 2 + x, top + 3 * height / 4, paint);
+			
+			holder.unlockCanvasAndPost(canvas);
+		}
+	}
+
+	private void placeNumber(int index, int number)
+	{
+		cancelSolve();
+
+		grid[index] = number;
+		solvedCells[index] = false;
+		conflicts.set(index, number);
+	}
+
+	private void clearGrid()
+	{
+		int i;
+
+		cancelSolve();
+
+		for (i = 0; i < 81; i++)
+		{
+			grid[i] = 0;
+			solvedCells[i] = false;
+		}
+
+		conflicts.clear();
+	}
+	
+	private void startSolve()
+	{
+		int i;
+
+		if (solving)
+			return;
+
+		// A cancelled solve stops within a few nodes, but it has to let go
+		// of the grid before it can be reused
+		waitForLastSolve();
+
+		for (i = 0; i < 81; i++)
+			solvingGrid[i] = grid[i];
+		
+		solveToken.reset();
+		solveStart = System.nanoTime();
+		lastSolve = solver.solve(solvingGrid, solveBudget, solveDone);
+		solving = true;
+	}
+
+	// Swaps the solution in once the background solve is over, or gets the
+	// solve button shaken if there is none
+	private void finishSolve()
+	{
+		int i;
+		int[] shown;
+
+		if (!solving || !lastSolve.isDone())
+			return;
+
+		solving = false;
+
+		if (waitForLastSolve() != SolveResult.SOLVED)
+		{
+			selectedNumber = 10;
+			return;
+		}
+
+		// A solution has no conflicts, so none of this changes any cell
+		for (i = 0; i < 81; i++)
+		{
+			if (solvingGrid[i] != grid[i])
+			{
+				solvedCells[i] = true;
+				conflicts.set(i, solvingGrid[i]);
+			}
+		}
+
+		shown = grid;
+		grid = solvingGrid;
+		solvingGrid = shown;
+	}
+
+	// Drops the running solve, its result would be for a grid that is gone
+	private void cancelSolve()
+	{
+		if (!solving)
+			return;
+
+		solveToken.cancel();
+		solving = false;
+	}
+
+	private SolveResult waitForLastSolve()
+	{
+		if (lastSolve == null)
+			return SolveResult.UNSOLVABLE;
+
+		while (true) {
+			try {
+				return lastSolve.get();
+			} catch (InterruptedException e) {
+			} catch (Exception e) {
+				return SolveResult.UNSOLVABLE;
+			}
+		}
+	}
+	
+	private void setTextSize(String text, float height, Paint paint)
+	{
+		final float testTextSize = 48.0f;
+		paint.setTextSize(testTextSize);
+		
+		Rect bounds = new Rect();
+		paint.getTextBounds(text, 0, text.length(), bounds);
+		
+		float desiredTextSize = testTextSize * height / bounds.height();
+		paint.setTextSize(desiredTextSize);
+	}
+
+	private Canvas lockCanvas()
+	{
+		if (surfaceValid)
+			return holder.lockCanvas();
+		else
+			return null;
+	}
+
+	private Canvas lockCanvas(Rect dirty)
+	{
+		if (surfaceValid)
+			return holder.lockCanvas(dirty);
+		else
+			return null;
+	}
+	
+	private void processInput (float x, float y, int e)
+	{
+		int target;
+
+		if (e != MotionEvent.ACTION_DOWN)
+			return;
+
+		target = layout.hit(x, y);
+
+		if (target == GridLayout.BIN)
+			clearGrid();
+		else if (target == GridLayout.SOLVE)
+			startSolve();
+		else if (target >= GridLayout.KEYS)
+			selectedNumber = target - GridLayout.KEYS;
+		else if (target != GridLayout.NONE)
+			selectedIndex = target;
+	}
+}
\ No newline at end of file
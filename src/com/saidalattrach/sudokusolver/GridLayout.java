@@ -0,0 +1,283 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.Arrays;
+
+// Positions of everything on the screen, worked out once per surface size:
+// the 81 cells, the key pad, the solve button and the recycle bin. Every
+// target also gets a touch area, which for the cells and the keys reaches
+// halfway across the gaps around them, so a touch between two of them goes
+// to the nearest one. The touch areas are cut along each axis into bands,
+// and a touch is resolved with two array lookups and one table lookup
+public class GridLayout
+{
+	// Targets, numbered so the cells come first and a key is KEYS plus its
+	// number, the clear key being number 0
+	public static final int NONE = -1;
+	public static final int KEYS = 81;
+	public static final int SOLVE = KEYS + 10;
+	public static final int BIN = SOLVE + 1;
+	public static final int TARGETS = BIN + 1;
+
+	private static final float relGridSize = 0.975f;
+	private static final float relSpacing = 0.002f;
+	private static final float blockSpacingFactor = 8.0f;
+	private static final float relBinY = 0.005f;
+
+	int width;
+	int height;
+
+	int gridSize;
+	int cellSize;
+	int spacing;
+	int blockSpacing;
+	int gridX;
+	int gridY;
+	int keyPadY;
+	int keyPadHeight;
+	int solveX;
+	int solveY;
+	int solveWidth;
+	int solveHeight;
+	int binX;
+	int binY;
+	int binWidth;
+	int binHeight;
+
+	// Drawn rectangle of each target, right and bottom excluded
+	final int[] lefts = new int[TARGETS];
+	final int[] tops = new int[TARGETS];
+	final int[] rights = new int[TARGETS];
+	final int[] bottoms = new int[TARGETS];
+
+	// Touch area of each target
+	private int[] hitLefts = new int[TARGETS];
+	private int[] hitTops = new int[TARGETS];
+	private int[] hitRights = new int[TARGETS];
+	private int[] hitBottoms = new int[TARGETS];
+
+	// Band of each pixel column and row, and the target of each pair of
+	// bands, columnBands wide
+	private int[] columnBand = new int[0];
+	private int[] rowBand = new int[0];
+	private int columnBands;
+	private int[] bandTargets = new int[0];
+
+	private int[] edges = new int[2 * TARGETS];
+
+	// binImageWidth, binImageHeight : size of the recycle bin image, which
+	// is scaled to the width of a cell
+	public void layout(int width, int height, int binImageWidth, int binImageHeight)
+	{
+		int fullHeight;
+
+		this.width = width;
+		this.height = height;
+
+		calculateDimensions(width);
+		fullHeight = gridSize + 6 * blockSpacing + 4 * cellSize;
+		if (height < fullHeight)
+			calculateDimensions(width * height / fullHeight);
+
+		gridX = (width - gridSize) / 2;
+		gridY = (height - gridSize - cellSize - blockSpacing) / 2;
+		keyPadY = gridY + gridSize + (height - gridY - gridSize - 2 * cellSize - blockSpacing) / 2;
+		keyPadHeight = 2 * cellSize + blockSpacing;
+		solveX = gridX + 3 * cellSize + 2 * spacing + blockSpacing;
+		solveY = (gridY - cellSize) / 2;
+		solveWidth = 3 * cellSize + 2 * spacing;
+		solveHeight = cellSize;
+
+		binWidth = cellSize;
+		binHeight = binImageHeight * binWidth / binImageWidth;
+		binX = width - binWidth;
+		binY = (int) (relBinY * height);
+
+		layoutTargets();
+		layoutHitAreas();
+		buildBands();
+	}
+
+	// Returns the target under a touch, NONE if there is none
+	public int hit(float x, float y)
+	{
+		int column, row;
+
+		if (!(x >= 0 && y >= 0 && x < width && y < height))
+			return NONE;
+
+		column = columnBand[(int) x];
+		row = rowBand[(int) y];
+
+		return bandTargets[row * columnBands + column];
+	}
+
+	private void calculateDimensions(int screenWidth)
+	{
+		gridSize = (int) (relGridSize * screenWidth);
+		spacing = (int) (relSpacing * screenWidth);
+		spacing = spacing < 1 ? 1 : spacing;
+		blockSpacing = (int) (blockSpacingFactor * spacing);
+		cellSize = (gridSize - 6 * spacing - 2 * blockSpacing) / 9;
+		gridSize = 9 * cellSize + 6 * spacing + 2 * blockSpacing;
+	}
+
+	// Offset of the nth cell of a row or column from the edge of the grid
+	private int offset(int n)
+	{
+		return n * (cellSize + spacing) + n / 3 * (blockSpacing - spacing);
+	}
+
+	private void layoutTargets()
+	{
+		int row, col, number;
+
+		for (row = 0; row < 9; row++)
+			for (col = 0; col < 9; col++)
+				setRect(row * 9 + col, gridX + offset(col), gridY + offset(row), cellSize, cellSize);
+
+		// The numbers take the bottom row of the key pad, in the columns of
+		// the grid, and the clear key sits above 4 to 6
+		for (number = 1; number <= 9; number++)
+			setRect(KEYS + number, gridX + offset(number - 1), keyPadY + cellSize + blockSpacing, cellSize, cellSize);
+
+		setRect(KEYS, solveX, keyPadY, solveWidth, cellSize);
+		setRect(SOLVE, solveX, solveY, solveWidth, solveHeight);
+		setRect(BIN, binX, binY, binWidth, binHeight);
+	}
+
+	private void layoutHitAreas()
+	{
+		int target, number;
+		int middle;
+
+		System.arraycopy(lefts, 0, hitLefts, 0, TARGETS);
+		System.arraycopy(tops, 0, hitTops, 0, TARGETS);
+		System.arraycopy(rights, 0, hitRights, 0, TARGETS);
+		System.arraycopy(bottoms, 0, hitBottoms, 0, TARGETS);
+
+		// Gaps between cells are split between their two sides
+		for (target = 0; target < 81; target++)
+		{
+			if (target % 9 != 8)
+				splitGap(target, target + 1, true);
+
+			if (target < 72)
+				splitGap(target, target + 9, false);
+		}
+
+		for (number = 1; number < 9; number++)
+			splitGap(KEYS + number, KEYS + number + 1, true);
+
+		// So is the gap between the clear key and the numbers below it,
+		// and the clear key reaches across the gaps of its three columns
+		middle = (bottoms[KEYS] + tops[KEYS + 5]) / 2;
+		hitBottoms[KEYS] = middle;
+
+		for (number = 1; number <= 9; number++)
+			hitTops[KEYS + number] = middle;
+
+		hitLefts[KEYS] = hitLefts[KEYS + 4];
+		hitRights[KEYS] = hitRights[KEYS + 6];
+	}
+
+	// first and second are next to each other, second to the right of or
+	// below first
+	private void splitGap(int first, int second, boolean horizontal)
+	{
+		int middle;
+
+		if (horizontal)
+		{
+			middle = (rights[first] + lefts[second]) / 2;
+			hitRights[first] = middle;
+			hitLefts[second] = middle;
+		}
+		else
+		{
+			middle = (bottoms[first] + tops[second]) / 2;
+			hitBottoms[first] = middle;
+			hitTops[second] = middle;
+		}
+	}
+
+	// Every edge of a touch area starts a band, so a band is inside or
+	// outside each area as a whole
+	private void buildBands()
+	{
+		int rowBands, target;
+		int left, top, right, bottom;
+		int column, row;
+
+		if (columnBand.length < width)
+			columnBand = new int[width];
+
+		if (rowBand.length < height)
+			rowBand = new int[height];
+
+		columnBands = fillBands(columnBand, width, hitLefts, hitRights);
+		rowBands = fillBands(rowBand, height, hitTops, hitBottoms);
+
+		if (bandTargets.length < columnBands * rowBands)
+			bandTargets = new int[columnBands * rowBands];
+
+		Arrays.fill(bandTargets, NONE);
+
+		// The bin comes last so it wins where it covers something else
+		for (target = 0; target < TARGETS; target++)
+		{
+			left = Math.max(0, hitLefts[target]);
+			top = Math.max(0, hitTops[target]);
+			right = Math.min(width, hitRights[target]);
+			bottom = Math.min(height, hitBottoms[target]);
+
+			if (left >= right || top >= bottom)
+				continue;
+
+			for (row = rowBand[top]; row <= rowBand[bottom - 1]; row++)
+				for (column = columnBand[left]; column <= columnBand[right - 1]; column++)
+					bandTargets[row * columnBands + column] = target;
+		}
+	}
+
+	// Sets the band of each pixel from 0 to length and returns the number
+	// of bands
+	private int fillBands(int[] bands, int length, int[] starts, int[] ends)
+	{
+		int count = 0;
+		int band = 0;
+		int i, pixel;
+
+		for (i = 0; i < TARGETS; i++)
+		{
+			edges[2 * i] = starts[i];
+			edges[2 * i + 1] = ends[i];
+		}
+
+		Arrays.sort(edges);
+		i = 0;
+
+		for (pixel = 0; pixel < length; pixel++)
+		{
+			while (i < edges.length && edges[i] <= pixel)
+			{
+				if (edges[i] > 0 && (i == 0 || edges[i] != edges[i - 1]))
+					band++;
+
+				i++;
+			}
+
+			bands[pixel] = band;
+			count = band + 1;
+		}
+
+		return count;
+	}
+
+	private void setRect(int target, int left, int top, int width, int height)
+	{
+		lefts[target] = left;
+		tops[target] = top;
+		rights[target] = left + width;
+		bottoms[target] = top + height;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.saidalattrach.sudokusolver;
+
+// A symmetry of the 9x9 board: a permutation of the cells that keeps rows,
+// columns and boxes together, and a relabeling of the numbers. Made by
+// Canonicalizer, it turns a grid into its canonical form and turns the
+// canonical form, or a solution of it, back into the original
+public class GridTransform
+{
+	// Cell of the original grid that lands on each cell of the canonical one
+	final int[] cellMap = new int[81];
+
+	// Canonical number of each original number, and the other way round.
+	// 0 always stays 0
+	final int[] digitMap = new int[10];
+	final int[] inverseDigitMap = new int[10];
+
+	public void apply(int[] grid, int[] canonical)
+	{
+		int i;
+
+		for (i = 0; i < 81; i++)
+			canonical[i] = digitMap[grid[cellMap[i]]];
+	}
+
+	public void invert(int[] canonical, int[] grid)
+	{
+		int i;
+
+		for (i = 0; i < 81; i++)
+			grid[cellMap[i]] = inverseDigitMap[canonical[i]];
+	}
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.saidalattrach.sudokusolver;
+
+// Bounded queue of touch events from the UI thread to the render thread,
+// without locks or allocation. Events are kept in preallocated parallel
+// arrays. Exactly one thread may offer and exactly one may drain
+public class InputRingBuffer
+{
+	// Gets the events of a drain, oldest first
+	public interface Handler
+	{
+		public void onInput(float x, float y, int event);
+	}
+
+	private int mask;
+	private float[] xs;
+	private float[] ys;
+	private int[] events;
+
+	// Events offered and events drained so far. Each is only written by its
+	// own thread, and they may wrap around since only their difference counts
+	private volatile int head = 0;
+	private volatile int tail = 0;
+
+	// capacity : rounded up to a power of two
+	public InputRingBuffer(int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+
+		mask = size - 1;
+		xs = new float[size];
+		ys = new float[size];
+		events = new int[size];
+	}
+
+	// Called by the producer. Returns false if the buffer is full, which
+	// only happens when the consumer has stopped draining
+	public boolean offer(float x, float y, int event)
+	{
+		int slot = head;
+
+		if (slot - tail > mask)
+			return false;
+
+		xs[slot & mask] = x;
+		ys[slot & mask] = y;
+		events[slot & mask] = event;
+
+		// Publishes the slot to the consumer
+		head = slot + 1;
+
+		return true;
+	}
+
+	// Called by the consumer. Hands every queued event to the handler, then
+	// frees their slots at once. Returns the number of events
+	public int drain(Handler handler)
+	{
+		int first = tail;
+		int last = head;
+		int slot;
+
+		for (slot = first; slot != last; slot++)
+			handler.onInput(xs[slot & mask], ys[slot & mask], events[slot & mask]);
+
+		tail = last;
+
+		return last - first;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Searches a single grid on several threads of a fixed pool, each on its
+// own copy of the solver. The work is shared as the search goes: a thread
+// that runs out waits on a queue, and a busy one hands it the numbers it
+// has not tried yet in its shallowest guess, so a hard subtree is spread
+// over every thread instead of keeping one of them busy alone. Reaching
+// the solution limit stops every thread, and so does running out of budget
+// in any of them. The node limit of a budget is shared by all the threads,
+// so the whole search spends at most that many
+public class ParallelSolver implements Solver
+{
+	private int[] grid;
+	private int boxSize;
+	private WorkerPool pool;
+
+	private CancellationToken stop;
+	private BranchQueue queue;
+	private volatile boolean exhausted;
+	private int solutionLimit;
+	private int solutionCount;
+	private int[] firstSolution;
+
+	public ParallelSolver()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelSolver(int threads)
+	{
+		this(new int[9 * 9], threads);
+	}
+
+	public ParallelSolver(int[] grid, int threads)
+	{
+		this(grid, 3, threads);
+	}
+
+	// Solves boards of boxSize x boxSize boxes, up to 25x25
+	public ParallelSolver(int[] grid, int boxSize, int threads)
+	{
+		this.grid = grid;
+		this.boxSize = boxSize;
+		pool = new WorkerPool("ParallelSolver", threads);
+	}
+
+	public int[] getGrid()
+	{
+		return grid;
+	}
+
+	public void setGrid(int[] grid)
+	{
+		this.grid = grid;
+	}
+
+	public boolean solve()
+	{
+		return countSolutions(1) == 1;
+	}
+
+	public SolveResult solve(SolveBudget budget)
+	{
+		if (search(1, budget) == 1)
+			return SolveResult.SOLVED;
+
+		return exhausted ? SolveResult.BUDGET_EXHAUSTED : SolveResult.UNSOLVABLE;
+	}
+
+	public int countSolutions(int limit)
+	{
+		return search(limit, null);
+	}
+
+	// budget : may be null
+	private int search(int limit, SolveBudget budget)
+	{
+		SudokuSolver root = new SudokuSolver(grid.clone(), boxSize);
+		List<Runnable> workers = new ArrayList<Runnable>();
+		int i;
+
+		exhausted = false;
+
+		if (!root.prepare(limit))
+			return 0;
+
+		if (budget != null)
+			root.setBudget(budget);
+
+		if (budget != null && budget.getMaxNodes() > 0)
+			root.shareNodes(new AtomicLong());
+
+		stop = new CancellationToken();
+		queue = new BranchQueue(pool.getThreads());
+		solutionLimit = limit;
+		solutionCount = 0;
+		firstSolution = null;
+
+		root.setStop(stop);
+		root.setQueue(queue);
+		queue.add(root);
+
+		for (i = 0; i < pool.getThreads(); i++)
+			workers.add(new Worker());
+
+		pool.runAll(workers);
+
+		if (solutionCount > limit)
+			solutionCount = limit;
+
+		if (firstSolution != null)
+			System.arraycopy(firstSolution, 0, grid, 0, grid.length);
+
+		return solutionCount;
+	}
+
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+
+	private synchronized void addSolutions(int[] solution, int count)
+	{
+		if (firstSolution == null)
+			firstSolution = solution.clone();
+
+		solutionCount += count;
+
+		if (solutionCount >= solutionLimit)
+			stopSearch();
+	}
+
+	private void budgetExhausted()
+	{
+		exhausted = true;
+		stopSearch();
+	}
+
+	private void stopSearch()
+	{
+		stop.cancel();
+		queue.close();
+	}
+
+	// Searches branches from the queue until the search is over
+	private class Worker implements Runnable
+	{
+		public void run()
+		{
+			SudokuSolver state;
+
+			try
+			{
+				while ((state = queue.take()) != null)
+				{
+					state.checkAndBranch();
+
+					if (state.getSolutionCount() > 0)
+						addSolutions(state.getFirstSolution(), state.getSolutionCount());
+
+					if (state.isBudgetExhausted())
+						budgetExhausted();
+				}
+			}
+			finally
+			{
+				// A thread that failed must not leave the others waiting on it
+				queue.close();
+			}
+		}
+	}
+}
\ No newline at end of file
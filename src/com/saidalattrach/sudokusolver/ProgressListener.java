@@ -0,0 +1,9 @@
+package com.saidalattrach.sudokusolver;
+
+// Told how far a solve with a SolveBudget has got. Called on the thread that
+// solves, every few thousand nodes, so it has to be quick
+public interface ProgressListener
+{
+	// nodes : search nodes visited so far
+	public void onProgress(long nodes);
+}
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.Random;
+
+// Generates puzzles with exactly one solution. A random complete grid is
+// made by filling the boxes on the diagonal, which cannot clash, with
+// shuffled numbers and solving the rest. Clues are then taken out in random
+// order, each removal kept only if the puzzle still has a single solution.
+// One generator reuses its solver and arrays for every puzzle, and the same
+// seed always gives the same puzzle
+public class PuzzleGenerator
+{
+	// Clues are removed in groups that keep the puzzle symmetric
+	public enum Symmetry
+	{
+		NONE,
+
+		// Half-turn around the center
+		ROTATIONAL,
+
+		// Mirror image across the middle column
+		MIRROR
+	}
+
+	private BoardGeometry geometry;
+	private SudokuSolver solver;
+	private Random random = new Random();
+
+	private Symmetry symmetry = Symmetry.NONE;
+	private int targetClues = 0;
+
+	private int[] solution;
+	private int[] work;
+	private int[] order;
+	private int[] numbers;
+
+	public PuzzleGenerator()
+	{
+		this(3);
+	}
+
+	// Generates boards of boxSize x boxSize boxes
+	public PuzzleGenerator(int boxSize)
+	{
+		geometry = BoardGeometry.get(boxSize);
+		solver = new SudokuSolver(new int[geometry.cells], boxSize);
+
+		solution = new int[geometry.cells];
+		work = new int[geometry.cells];
+		order = new int[geometry.cells];
+		numbers = new int[geometry.size];
+	}
+
+	public Symmetry getSymmetry()
+	{
+		return symmetry;
+	}
+
+	public void setSymmetry(Symmetry symmetry)
+	{
+		this.symmetry = symmetry;
+	}
+
+	public int getTargetClues()
+	{
+		return targetClues;
+	}
+
+	// Stops removing clues once the puzzle is down to this many, and never
+	// goes below it. A puzzle can still end up with more if no other clue
+	// can go, or with symmetry, if only a pair could. 0 removes all it can
+	public void setTargetClues(int targetClues)
+	{
+		this.targetClues = targetClues;
+	}
+
+	// The solution of the last puzzle generated
+	public int[] getSolution()
+	{
+		return solution;
+	}
+
+	public int[] generate(long seed)
+	{
+		int[] puzzle = new int[geometry.cells];
+
+		generate(puzzle, seed);
+
+		return puzzle;
+	}
+
+	// Fills the given array with a puzzle. Returns its number of clues
+	public int generate(int[] puzzle, long seed)
+	{
+		int clues = geometry.cells;
+		int cell, partner;
+		int removed;
+		int i;
+
+		random.setSeed(seed);
+		fillSolution();
+
+		System.arraycopy(solution, 0, puzzle, 0, geometry.cells);
+		solver.setGrid(work);
+
+		for (i = 0; i < geometry.cells; i++)
+			order[i] = i;
+		shuffle(order, geometry.cells);
+
+		for (i = 0; i < geometry.cells && clues > targetClues; i++)
+		{
+			cell = order[i];
+
+			// Already gone with its partner
+			if (puzzle[cell] == 0)
+				continue;
+
+			partner = partnerOf(cell);
+			removed = cell == partner ? 1 : 2;
+
+			// A pair would go below the target
+			if (clues - removed < targetClues)
+				continue;
+
+			puzzle[cell] = 0;
+			puzzle[partner] = 0;
+
+			System.arraycopy(puzzle, 0, work, 0, geometry.cells);
+
+			if (solver.countSolutions(2) == 1)
+				clues -= removed;
+			else
+			{
+				puzzle[cell] = solution[cell];
+				puzzle[partner] = solution[partner];
+			}
+		}
+
+		return clues;
+	}
+
+	// Derives the seed of each puzzle of a series from the seed of the series,
+	// so that puzzle index comes out the same whichever thread makes it
+	static long seedFor(long seed, int index)
+	{
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+		return z ^ (z >>> 31);
+	}
+
+	// The rest of a 9x9 grid can always be completed, but on other sizes
+	// some fills of the diagonal cannot, so those are drawn again
+	private void fillSolution()
+	{
+		int boxSize = geometry.boxSize;
+		int size = geometry.size;
+		int[] box;
+		int i, j;
+
+		for (i = 0; i < size; i++)
+			numbers[i] = i + 1;
+
+		solver.setGrid(solution);
+
+		do
+		{
+			for (i = 0; i < geometry.cells; i++)
+				solution[i] = 0;
+
+			for (i = 0; i < boxSize; i++)
+			{
+				box = geometry.unitCells[2 * size + i * boxSize + i];
+				shuffle(numbers, size);
+
+				for (j = 0; j < size; j++)
+					solution[box[j]] = numbers[j];
+			}
+		}
+		while (!solver.solve());
+	}
+
+	// The cell removed together with the given one, which may be itself
+	private int partnerOf(int cell)
+	{
+		int size = geometry.size;
+
+		switch (symmetry)
+		{
+		case ROTATIONAL:
+			return geometry.cells - 1 - cell;
+		case MIRROR:
+			return cell - cell % size + size - 1 - cell % size;
+		default:
+			return cell;
+		}
+	}
+
+	private void shuffle(int[] array, int length)
+	{
+		int i, j;
+		int temp;
+
+		for (i = length - 1; i > 0; i--)
+		{
+			j = random.nextInt(i + 1);
+			temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+}
\ No newline at end of file
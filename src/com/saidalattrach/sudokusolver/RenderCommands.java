@@ -0,0 +1,16 @@
+package com.saidalattrach.sudokusolver;
+
+// Drawing operations issued by BoardRenderer. Grid carries them out on a
+// Canvas, anything else can record them to check what would be drawn
+public interface RenderCommands
+{
+	// Copies the cached static layer, the background, the empty cells, the
+	// keypad and the recycle bin, over a rectangle
+	public void drawStatic(int left, int top, int right, int bottom);
+
+	public void drawCell(int left, int top, int size, int number,
+			boolean selected, boolean conflict, boolean solved);
+
+	// step : position of the busy indicator, -1 when not solving
+	public void drawSolveButton(int left, int top, int right, int bottom, int step);
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.saidalattrach.sudokusolver;
+
+// Puts the render thread to sleep until there is something to draw. Other
+// threads post events, which are bits that pile up until the render thread
+// takes them all at once, so a burst of events costs a single frame
+public class RenderScheduler
+{
+	public static final int INPUT = 1;
+	public static final int SOLVE_PROGRESS = 2;
+	public static final int SOLVE_DONE = 4;
+
+	// Wakes the render thread so that it notices it should stop
+	public static final int STOP = 8;
+
+	private Object lock = new Object();
+	private int pending = 0;
+
+	public void post(int events)
+	{
+		synchronized (lock)
+		{
+			pending |= events;
+			lock.notifyAll();
+		}
+	}
+
+	// Blocks until an event is posted, then takes all the posted events
+	public int await()
+	{
+		int events;
+
+		synchronized (lock)
+		{
+			while (pending == 0)
+			{
+				try
+				{
+					lock.wait();
+				}
+				catch (InterruptedException e) {}
+			}
+
+			events = pending;
+			pending = 0;
+
+			return events;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Least recently used map from canonical 9x9 puzzles to their canonical
+// solutions, bounded by an estimate of the memory it takes. Puzzles without
+// a solution are remembered too. Safe to share between threads
+public class SolutionCache
+{
+	// Rough size of an entry: the puzzle and its solution packed in two
+	// arrays of longs, their headers, the key and the map entry
+	private static final int ENTRY_BYTES = 256;
+
+	// Stored for puzzles without a solution
+	private static final long[] UNSOLVABLE = new long[0];
+
+	private final int maxEntries;
+	private final LinkedHashMap<Key, long[]> entries;
+
+	// Looked up without allocating, under the lock
+	private final Key probe = new Key();
+
+	private long hits;
+	private long misses;
+
+	// Uses up to a 64th of the heap
+	public SolutionCache()
+	{
+		this(Runtime.getRuntime().maxMemory() / 64);
+	}
+
+	public SolutionCache(long maxBytes)
+	{
+		maxEntries = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / ENTRY_BYTES));
+
+		// Iterated in access order, so the eldest entry is the least recently used
+		entries = new LinkedHashMap<Key, long[]>(16, 0.75f, true)
+		{
+			protected boolean removeEldestEntry(Map.Entry<Key, long[]> eldest)
+			{
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	// Fills in the solution of a canonical puzzle if it is known.
+	// Returns 1 if it was, 0 if the puzzle is known to have no solution,
+	// and -1 if it is not in the cache
+	public synchronized int lookup(int[] canonical, int[] solution)
+	{
+		long[] packed;
+
+		pack(canonical, probe.words);
+		probe.hash = Arrays.hashCode(probe.words);
+
+		packed = entries.get(probe);
+
+		if (packed == null)
+		{
+			misses++;
+			return -1;
+		}
+
+		hits++;
+
+		if (packed == UNSOLVABLE)
+			return 0;
+
+		unpack(packed, solution);
+		return 1;
+	}
+
+	// solution : null if the puzzle has none
+	public synchronized void put(int[] canonical, int[] solution)
+	{
+		Key key = new Key();
+		long[] packed = UNSOLVABLE;
+
+		pack(canonical, key.words);
+		key.hash = Arrays.hashCode(key.words);
+
+		if (solution != null)
+		{
+			packed = new long[Key.WORDS];
+			pack(solution, packed);
+		}
+
+		entries.put(key, packed);
+	}
+
+	public synchronized void clear()
+	{
+		entries.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public int getMaxEntries()
+	{
+		return maxEntries;
+	}
+
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	// Four bits per cell, sixteen cells per long
+	private static void pack(int[] grid, long[] words)
+	{
+		int i;
+
+		for (i = 0; i < Key.WORDS; i++)
+			words[i] = 0;
+
+		for (i = 0; i < 81; i++)
+			words[i >>> 4] |= (long) grid[i] << ((i & 15) << 2);
+	}
+
+	private static void unpack(long[] words, int[] grid)
+	{
+		int i;
+
+		for (i = 0; i < 81; i++)
+			grid[i] = (int) (words[i >>> 4] >>> ((i & 15) << 2)) & 15;
+	}
+
+	private static class Key
+	{
+		static final int WORDS = (81 + 15) / 16;
+
+		final long[] words = new long[WORDS];
+		int hash;
+
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		public boolean equals(Object other)
+		{
+			return other instanceof Key && Arrays.equals(words, ((Key) other).words);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.saidalattrach.sudokusolver;
+
+// Limits on a single solve: how long it may take, how many search nodes it
+// may visit and a token to cancel it with. A limit of 0 means no limit. The
+// time starts when the solve does, so a budget can be reused for many solves
+public class SolveBudget
+{
+	private final long timeoutNanos;
+	private final long maxNodes;
+	private final CancellationToken token;
+	private final ProgressListener listener;
+
+	// token : may be null
+	public SolveBudget(long timeoutNanos, long maxNodes, CancellationToken token)
+	{
+		this(timeoutNanos, maxNodes, token, null);
+	}
+
+	// listener : told of the progress of the search, may be null
+	public SolveBudget(long timeoutNanos, long maxNodes, CancellationToken token, ProgressListener listener)
+	{
+		this.timeoutNanos = timeoutNanos;
+		this.maxNodes = maxNodes;
+		this.token = token;
+		this.listener = listener;
+	}
+
+	public static SolveBudget ofMillis(long millis)
+	{
+		return new SolveBudget(millis * 1000000L, 0, null);
+	}
+
+	public static SolveBudget ofNodes(long maxNodes)
+	{
+		return new SolveBudget(0, maxNodes, null);
+	}
+
+	public long getTimeoutNanos()
+	{
+		return timeoutNanos;
+	}
+
+	public long getMaxNodes()
+	{
+		return maxNodes;
+	}
+
+	public CancellationToken getToken()
+	{
+		return token;
+	}
+
+	public ProgressListener getListener()
+	{
+		return listener;
+	}
+}
\ No newline at end of file
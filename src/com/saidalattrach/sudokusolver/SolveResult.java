@@ -0,0 +1,15 @@
+package com.saidalattrach.sudokusolver;
+
+// Outcome of a solve with a SolveBudget
+public enum SolveResult
+{
+	// The grid holds a solution
+	SOLVED,
+
+	// The search finished without finding a solution
+	UNSOLVABLE,
+
+	// The budget ran out or the solve was cancelled before the search could
+	// tell, the grid is left in an unspecified state
+	BUDGET_EXHAUSTED
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.saidalattrach.sudokusolver;
+
+// Counters and timings of the last solve of a SudokuSolver. The solver only
+// fills them in when it has been given a SolveStats, and resets them at the
+// start of every solve, so one instance can be reused
+public class SolveStats
+{
+	// Search nodes visited by checkAndBranch, and guesses that were undone
+	long nodes;
+	long backtracks;
+	int maxDepth;
+
+	// Cells filled by simpleEliminate (naked singles) and by
+	// lessSimpleEliminate (hidden singles)
+	long nakedSingles;
+	long hiddenSingles;
+
+	// Cells that lost candidates to each technique, and the time spent
+	// trying it, indexed by Technique.ordinal()
+	long[] eliminations = new long[Technique.values().length];
+	long[] techniqueNanos = new long[Technique.values().length];
+
+	// Time spent checking the givens, propagating them before the search,
+	// and searching, in nanoseconds
+	long validationNanos;
+	long propagationNanos;
+	long branchingNanos;
+
+	public void reset()
+	{
+		int i;
+
+		nodes = 0;
+		backtracks = 0;
+		maxDepth = 0;
+		nakedSingles = 0;
+		hiddenSingles = 0;
+		validationNanos = 0;
+		propagationNanos = 0;
+		branchingNanos = 0;
+
+		for (i = 0; i < eliminations.length; i++)
+		{
+			eliminations[i] = 0;
+			techniqueNanos[i] = 0;
+		}
+	}
+
+	public long getNodes()
+	{
+		return nodes;
+	}
+
+	public long getBacktracks()
+	{
+		return backtracks;
+	}
+
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	public long getNakedSingles()
+	{
+		return nakedSingles;
+	}
+
+	public long getHiddenSingles()
+	{
+		return hiddenSingles;
+	}
+
+	public long getEliminations(Technique technique)
+	{
+		return eliminations[technique.ordinal()];
+	}
+
+	public long getTechniqueNanos(Technique technique)
+	{
+		return techniqueNanos[technique.ordinal()];
+	}
+
+	public long getValidationNanos()
+	{
+		return validationNanos;
+	}
+
+	public long getPropagationNanos()
+	{
+		return propagationNanos;
+	}
+
+	public long getBranchingNanos()
+	{
+		return branchingNanos;
+	}
+
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		Technique[] techniques = Technique.values();
+		int i;
+
+		builder.append("nodes=").append(nodes)
+				.append(" backtracks=").append(backtracks)
+				.append(" maxDepth=").append(maxDepth)
+				.append(" nakedSingles=").append(nakedSingles)
+				.append(" hiddenSingles=").append(hiddenSingles);
+
+		for (i = 0; i < techniques.length; i++)
+			if (eliminations[i] != 0 || techniqueNanos[i] != 0)
+				builder.append(' ').append(techniques[i]).append('=').append(eliminations[i])
+						.append(" (").append(techniqueNanos[i]).append(" ns)");
+
+		builder.append(" validationNanos=").append(validationNanos)
+				.append(" propagationNanos=").append(propagationNanos)
+				.append(" branchingNanos=").append(branchingNanos);
+
+		return builder.toString();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.saidalattrach.sudokusolver;
+
+// Common interface of the solving engines. A solver is made for boards of
+// boxSize x boxSize boxes, 9x9 by default, so its grid holds N * N numbers
+// in row order for boards N = boxSize * boxSize cells wide, 0 for an empty
+// cell. The grid is filled in place
+public interface Solver
+{
+	public int[] getGrid();
+
+	public void setGrid(int[] grid);
+
+	// Returns false if the grid has no solution
+	public boolean solve();
+
+	// Gives up once the budget runs out, see SolveBudget. The grid holds the
+	// solution only if the result is SOLVED
+	public SolveResult solve(SolveBudget budget);
+
+	// Searches until limit solutions are found and leaves the first one in
+	// the grid. Returns the number of solutions found, at most limit
+	public int countSolutions(int limit);
+}
\ No newline at end of file
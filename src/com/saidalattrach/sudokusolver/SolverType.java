@@ -0,0 +1,44 @@
+package com.saidalattrach.sudokusolver;
+
+// The available solving engines
+public enum SolverType
+{
+	// Constraint propagation with naked and hidden singles, then backtracking
+	BACKTRACKING
+	{
+		public Solver create(int boxSize)
+		{
+			return new SudokuSolver(new int[boxSize * boxSize * boxSize * boxSize], boxSize);
+		}
+	},
+
+	// Knuth's Algorithm X on the exact cover form of the puzzle
+	DANCING_LINKS
+	{
+		public Solver create(int boxSize)
+		{
+			return new DancingLinksSolver(new int[boxSize * boxSize * boxSize * boxSize], boxSize);
+		}
+	},
+
+	// The same search as BACKTRACKING on 64-bit bitboards. Only 9x9 boards
+	// fit, other sizes get a BACKTRACKING solver
+	BITBOARD
+	{
+		public Solver create(int boxSize)
+		{
+			if (boxSize == 3)
+				return new BitboardSolver();
+
+			return BACKTRACKING.create(boxSize);
+		}
+	};
+
+	public Solver create()
+	{
+		return create(3);
+	}
+
+	// Creates a solver for boards of boxSize x boxSize boxes
+	public abstract Solver create(int boxSize);
+}
\ No newline at end of file
@@ -1,484 +1,1203 @@
-package com.saidalattrach.sudokusolver;
-
-public class SudokuSolver
-{
-	private int[] grid;
-
-	// pm : Possibility Matrix
-	private boolean[] pm = new boolean[9 * 9 * 9];
-
-	public SudokuSolver()
-	{
-		this(new int[9 * 9]);
-	}
-
-	public SudokuSolver(int[] grid)
-	{
-		this.grid = grid;
-	}
-
-	public int[] getGrid()
-	{
-		return grid;
-	}
-
-	public boolean[] getPM()
-	{
-		return pm;
-	}
-
-	public void setGrid(int[] grid)
-	{
-		this.grid = grid;
-	}
-
-	public boolean solve()
-	{
-		if (!validateGrid())
-			return false;
-
-		initializePM();
-
-		int numsPlaced = 1;
-
-		while (numsPlaced > 0)
-		{
-			numsPlaced = 0;
-			numsPlaced += simpleEliminate();
-			numsPlaced += lessSimpleEliminate();
-		}
-
-		return checkAndBranch();
-	}
-
-	private boolean validateGrid()
-	{
-		int i, j, k, w;
-		int gridOffset;
-
-		boolean[] counters = new boolean[9];
-		
-		for (i = 0; i < 9; i++)
-		{
-			for (j = 0; j < 9; j++)
-				counters[j] = false;
-			
-			for (j = 0; j < 9; j++)
-			{
-				if (grid[j + i * 9] != 0)
-				{
-					if (counters[grid[j + i * 9] - 1])
-						return false;
-					else
-						counters[grid[j + i * 9] - 1] = true;
-				}
-			}
-		}
-		
-		for (i = 0; i < 9; i++)
-		{
-			for (j = 0; j < 9; j++)
-				counters[j] = false;
-			
-			for (j = 0; j < 9; j++)
-			{
-				if (grid[i + j * 9] != 0)
-				{
-					if (counters[grid[i + j * 9] - 1])
-						return false;
-					else
-						counters[grid[i + j * 9] - 1] = true;
-				}
-			}
-		}
-		
-		gridOffset = 0;
-		
-		for (i = 0; i < 3; i++)
-		{
-			for (j = 0; j < 3; j++)
-			{
-				for (k = 0; k < 9; k++)
-					counters[k] = false;
-							
-				for (k = 0; k < 3; k++)
-				{
-					for (w = 0; w < 3; w++)
-					{
-						if (grid[gridOffset] != 0)
-						{
-							if (counters[grid[gridOffset] - 1])
-								return false;
-							else
-								counters[grid[gridOffset] - 1] = true;
-						}
-						
-						gridOffset++;
-					}
-					
-					gridOffset += 6;
-				}
-				
-				gridOffset -= 24;
-			}
-			
-			gridOffset += 18;
-		}
-
-		return true;
-	}
-
-	private boolean checkAndBranch()
-	{
-		int i, j;
-
-		// Finds the un-filled cell with the least possibilities
-		int possibsCounter;
-		int leastPossibs = 10;
-		int leastPossibsIndex = -1;
-
-		for (i = 0; i < 81; i++)
-		{
-			if (grid[i] == 0)
-			{
-				possibsCounter = 0;
-
-				for (j = 0; j < 9; j++)
-				{
-					if (pm[j + i * 9] == true)
-						possibsCounter++;
-				}
-				if (possibsCounter < leastPossibs)
-				{
-					leastPossibs = possibsCounter;
-					leastPossibsIndex = i;
-				}
-			}
-		}
-
-		// This means that all cells are filled and puzzle is solved
-		if (leastPossibs == 10)
-			return true;
-
-		// This means that the puzzle is invalid
-		if (leastPossibs == 0)
-			return false;
-
-		int[] possibs = new int[leastPossibs];
-		int counter = 0;
-
-		for (i = 0; i < 9; i++)
-		{
-			if (pm[leastPossibsIndex * 9 + i] == true)
-			{
-				possibs[counter] = i + 1;
-				counter++;
-			}
-		}
-
-		int[] oldGrid = new int[81];
-		
-		for (i = 0; i < 81; i++)
-			oldGrid[i] = grid[i];
-
-		for (i = 0; i < leastPossibs; i++)
-		{
-			grid[leastPossibsIndex] = possibs[i];
-
-			boolean result = solve();
-			
-			if (result)
-				return true;
-
-			for (j = 0; j < 81; j++)
-				grid[j] = oldGrid[j];
-		}
-
-		return false;
-	}
-
-	// Places a number in the grid and updates the possibility matrix accordingly
-	private void placeNumber(int index, int number)
-	{
-		// Place the number in the grid
-		grid[index] = number;
-
-		// Calulate row and column of this number
-		int row = index / 9;
-		int col = index % 9;
-
-		// Calculate starting index of this number's 3x3 square
-		int squareStart = (col - (col % 3)) + (row - (row % 3)) * 9;
-
-		int i, j;
-		int gridOffset;
-		int pmOffset;
-
-		// Remove this number from the possibilities of each cell in the row...
-		pmOffset = number - 1 + row * 81;
-
-		for (i = row * 9; i < (row + 1) * 9; i++)
-		{
-			if (grid[i] == 0)
-				pm[pmOffset] = false;
-
-			pmOffset += 9;
-		}
-
-		// ...column....
-		pmOffset = number - 1 + col * 9;
-
-		for (i = col; i < col + 81; i += 9)
-		{
-			if (grid[i] == 0)
-				pm[pmOffset] = false;
-
-			pmOffset += 81;
-		}
-
-		// ...and 3x3 square
-		gridOffset = squareStart;
-		pmOffset = number - 1 + squareStart * 9;
-
-		for (i = 0; i < 3; i++)
-		{
-			for (j = 0; j < 3; j++)
-			{
-				if (grid[gridOffset] == 0)
-					pm[pmOffset] = false;
-				
-				gridOffset++;
-				pmOffset += 9;
-			}
-
-			gridOffset += 6;
-			pmOffset += 54;
-		}
-
-		// Remove all other possibilities from this cell
-		for (i = 0; i < 9; i++)
-			pm[index * 9 + i] = false;
-		
-		pm[index * 9 + number - 1] = true;
-	}
-
-	private void initializePM()
-	{
-		int i;
-
-		for (i = 0; i < 9 * 9 * 9; i++)
-			pm[i] = true;
-
-		for (i = 0; i < 9 * 9; i++)
-			if (grid[i] != 0)
-				placeNumber(i, grid[i]);
-	}
-
-	private int simpleEliminate()
-	{
-		int counter = 0;
-	
-		boolean onlyOnePossib;
-		int single = 0;
-
-		int i, j;
-
-		for (i = 0; i < 81; i++)
-		{
-			if (grid[i] == 0)
-			{
-				onlyOnePossib = false;
-
-				for (j = 0; j < 9; j++)
-				{
-					if (pm[j + i * 9])
-					{
-						if (onlyOnePossib)
-						{
-							onlyOnePossib = false;
-							break;
-						}
-
-						onlyOnePossib = true;
-						single = j + 1;
-					}
-				}
-
-				if (onlyOnePossib)
-				{
-					placeNumber(i, single);
-					counter++;
-				}
-			}
-		}
-		
-		return counter;
-	}
-
-	private int lessSimpleEliminate()
-	{
-		int counter = 0;
-
-		boolean[] counters = new boolean[9];
-		int[] indices = new int[9];
-
-		int index;
-		int gridOffset;
-		int i, j, k, w, v;
-
-		// Check rows
-		for (k = 0; k < 9; k++)
-		{
-			for (i = 0; i < 9; i++)
-				counters[i] = false;
-
-			for (i = 0; i < 9; i++)
-				indices[i] = -1;
-
-			for (i = 0; i < 9; i++)
-			{
-				if (grid[i + k * 9] == 0)
-				{
-					for (j = 0; j < 9; j++)
-					{
-						if (pm[j + i * 9 + k * 81] == true)
-						{
-							if (counters[j] == true)
-								indices[j] = -1;
-							else
-							{
-								counters[j] = true;
-								indices[j] = i;
-							}
-						}
-					}
-				}
-			}
-
-			for (i = 0; i < 9; i++)
-			{
-				index = indices[i];
-				if (index != -1)
-				{
-					for (j = 0; j < 9; j++)
-						pm[j + index * 9 + k * 81] = false;
-
-					pm[i + index * 9 + k * 81] = true;
-
-					placeNumber(index + k * 9, i + 1);
-					counter++;
-				}
-			}
-		}
-
-		// Check columns
-		for (k = 0; k < 9; k++)
-		{
-			for (i = 0; i < 9; i++)
-				counters[i] = false;
-
-			for (i = 0; i < 9; i++)
-				indices[i] = -1;
-
-			for (i = 0; i < 9; i++)
-			{
-				if (grid[k + i * 9] == 0)
-				{
-					for (j = 0; j < 9; j++)
-					{
-						if (pm[j + k * 9 + i * 81] == true)
-						{
-							if (counters[j] == true)
-								indices[j] = -1;
-							else
-							{
-								counters[j] = true;
-								indices[j] = i;
-							}
-						}
-					}
-				}
-			}
-
-			for (i = 0; i < 9; i++)
-			{
-				index = indices[i];
-				if (index != -1)
-				{
-					for (j = 0; j < 9; j++)
-					{
-						pm[j + k * 9 + index * 81] = false;
-					}
-
-					pm[i + k * 9 + index * 81] = true;
-
-					placeNumber(k + index * 9, i + 1);
-					counter++;
-				}
-			}
-		}
-
-		// Check 3x3 squares
-		gridOffset = 0;
-
-		for (w = 0; w < 3; w++)
-		{
-			for (k = 0; k < 3; k++)
-			{
-				for (i = 0; i < 9; i++)
-					counters[i] = false;
-
-				for (i = 0; i < 9; i++)
-					indices[i] = -1;
-
-				for (j = 0; j < 3; j++)
-				{
-					for (i = 0; i < 3; i++)
-					{
-						if (grid[gridOffset] == 0)
-						{
-							for (v = 0; v < 9; v++)
-							{
-								if (pm[v + gridOffset * 9] == true)
-								{
-									if (counters[v] == true)
-										indices[v] = -1;
-									else
-									{
-										counters[v] = true;
-										indices[v] = gridOffset;
-									}
-								}
-							}
-						}
-
-						gridOffset++;
-					}
-
-					gridOffset += 6;
-				}
-
-				for (i = 0; i < 9; i++)
-				{
-					index = indices[i];
-					if (index != -1)
-					{
-						for (j = 0; j < 9; j++)
-							pm[j + index * 9] = false;
-
-						pm[i + index * 9] = true;
-						placeNumber(index, i + 1);
-						counter++;
-					}
-				}
-
-				gridOffset -= 24;
-			}
-
-			gridOffset += 18;
-		}
-
-		return counter;
-	}
-
+package com.saidalattrach.sudokusolver;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SudokuSolver implements Solver
+{
+	private int[] grid;
+
+	// Board dimensions and the cell and unit tables
+	private BoardGeometry geometry;
+	private int size;
+	private int cells;
+	private int[][] unitCells;
+	private int[][] cellUnits;
+	private int[][] peers;
+
+	// Candidate masks, one per cell. Bit (n - 1) is set if n can go in that cell
+	private int[] candidates;
+
+	// Trail of the changes made by placeNumber, so a branch can be rolled back.
+	// An entry is a cell and its candidate mask before the change; placements
+	// are stored as -(cell + 1) so the grid cell can be emptied again
+	private int[] trailCells;
+	private int[] trailMasks;
+	private int trailSize = 0;
+
+	// Stack of the guesses of the search, one frame per depth: the cell,
+	// the numbers left to try in it and the trail size to undo to
+	private int[] frameCells;
+	private int[] frameMasks;
+	private int[] frameCheckpoints;
+
+	// Worklist of the propagation: empty cells left with a single candidate,
+	// and units that lost a candidate since they were last checked
+	private int[] singles;
+	private int singlesCount = 0;
+	private int[] dirtyUnits;
+	private boolean[] unitDirty;
+	private int dirtyCount = 0;
+
+	// Eliminations tried when the singles stall, cheapest first
+	private Technique[] techniques = new Technique[0];
+
+	// Scratch space of the techniques. crossMasks is indexed by unit and
+	// kept cleared between uses
+	private int[] crossMasks;
+	private int[] crossUnits;
+	private int[] segmentMasks;
+	private int[] subsetCells;
+	private int[] positions;
+	private int[] subsetNumbers;
+
+	// The search stops once it has found this many solutions
+	private int solutionLimit = 1;
+	private int solutionCount = 0;
+	private int[] firstSolution;
+
+	// Set from another thread to abandon the search
+	private CancellationToken stop = null;
+
+	// Gets a branch of this search whenever a thread searching the same
+	// grid runs out of work, see ParallelSolver
+	private BranchQueue queue = null;
+
+	// Only spent during a solve with a SolveBudget
+	private BudgetMeter meter = new BudgetMeter();
+	private boolean budgeted = false;
+
+	// Filled in during a solve if set, see setStats
+	private SolveStats stats = null;
+
+	public SudokuSolver()
+	{
+		this(new int[9 * 9]);
+	}
+
+	public SudokuSolver(int[] grid)
+	{
+		this(grid, 3);
+	}
+
+	// Solves boards of boxSize x boxSize boxes, up to 25x25
+	public SudokuSolver(int[] grid, int boxSize)
+	{
+		this.grid = grid;
+		setGeometry(BoardGeometry.get(boxSize));
+	}
+
+	// Copies a solver in the middle of a search, so that a branch can be
+	// explored separately. The copy cannot undo past this point
+	SudokuSolver(SudokuSolver other)
+	{
+		setGeometry(other.geometry);
+		grid = other.grid.clone();
+		System.arraycopy(other.candidates, 0, candidates, 0, cells);
+		solutionLimit = other.solutionLimit;
+		stop = other.stop;
+		queue = other.queue;
+		techniques = other.techniques;
+		budgeted = other.budgeted;
+		meter.startFrom(other.meter);
+	}
+
+	private void setGeometry(BoardGeometry geometry)
+	{
+		this.geometry = geometry;
+		size = geometry.size;
+		cells = geometry.cells;
+		unitCells = geometry.unitCells;
+		cellUnits = geometry.cellUnits;
+		peers = geometry.peers;
+
+		candidates = new int[cells];
+
+		// Every cell can lose each of its candidates once and be placed once
+		trailCells = new int[cells * (size + 1)];
+		trailMasks = new int[cells * (size + 1)];
+
+		// Every guess is on a different empty cell
+		frameCells = new int[cells];
+		frameMasks = new int[cells];
+		frameCheckpoints = new int[cells];
+
+		singles = new int[cells];
+		dirtyUnits = new int[geometry.units];
+		unitDirty = new boolean[geometry.units];
+		firstSolution = new int[cells];
+
+		crossMasks = new int[geometry.units];
+		crossUnits = new int[size];
+		segmentMasks = new int[size];
+		subsetCells = new int[size];
+		positions = new int[size];
+		subsetNumbers = new int[size];
+	}
+
+	public int getBoxSize()
+	{
+		return geometry.boxSize;
+	}
+
+	public int[] getGrid()
+	{
+		return grid;
+	}
+
+	public int[] getCandidates()
+	{
+		return candidates;
+	}
+
+	// pm : Possibility Matrix, expanded from the candidate masks
+	public boolean[] getPM()
+	{
+		boolean[] pm = new boolean[cells * size];
+		int i, j;
+
+		for (i = 0; i < cells; i++)
+			for (j = 0; j < size; j++)
+				pm[j + i * size] = (candidates[i] & (1 << j)) != 0;
+
+		return pm;
+	}
+
+	public void setGrid(int[] grid)
+	{
+		this.grid = grid;
+	}
+
+	public EnumSet<Technique> getTechniques()
+	{
+		EnumSet<Technique> set = EnumSet.noneOf(Technique.class);
+		int i;
+
+		for (i = 0; i < techniques.length; i++)
+			set.add(techniques[i]);
+
+		return set;
+	}
+
+	// Sets the eliminations to try when naked and hidden singles stall. They
+	// are always tried from the cheapest to the most expensive. None by default
+	public void setTechniques(EnumSet<Technique> techniques)
+	{
+		this.techniques = techniques.toArray(new Technique[techniques.size()]);
+	}
+
+	public SolveStats getStats()
+	{
+		return stats;
+	}
+
+	// Collects statistics of every solve into the given record from now on,
+	// or stops collecting them if it is null
+	public void setStats(SolveStats stats)
+	{
+		this.stats = stats;
+	}
+
+	public boolean solve()
+	{
+		return countSolutions(1) == 1;
+	}
+
+	// Gives up once the budget runs out, see SolveBudget. The grid holds the
+	// solution only if the result is SOLVED, and is left as it was given if
+	// the budget ran out
+	public SolveResult solve(SolveBudget budget)
+	{
+		int count = countSolutions(1, budget);
+
+		if (count == 1)
+			return SolveResult.SOLVED;
+
+		return count == 0 ? SolveResult.UNSOLVABLE : SolveResult.BUDGET_EXHAUSTED;
+	}
+
+	// Same as countSolutions(limit), but returns -1 if the budget runs out
+	// before the limit is reached or the search is over, leaving the grid
+	// as it was given
+	public int countSolutions(int limit, SolveBudget budget)
+	{
+		int count;
+
+		setBudget(budget);
+		count = countSolutions(limit);
+		budgeted = false;
+
+		return meter.isExhausted() ? -1 : count;
+	}
+
+	// Keeps searching after the first solution until limit solutions are found,
+	// so countSolutions(2) == 1 means the puzzle is well-formed. The grid is
+	// left holding the first solution. Returns the number found, at most limit
+	public int countSolutions(int limit)
+	{
+		if (stats != null)
+			stats.reset();
+
+		if (!prepare(limit))
+			return 0;
+
+		long start = stats != null ? System.nanoTime() : 0;
+
+		// True once the limit is reached, and then the grid holds the last
+		// solution found, or when the search is abandoned
+		boolean stopped = checkAndBranch();
+
+		if (stats != null)
+			stats.branchingNanos = System.nanoTime() - start;
+
+		if (stopped && solutionLimit == 1 && solutionCount == 1)
+			return 1;
+
+		// Out of budget, the grid goes back to the givens, as the other
+		// engines leave it
+		if (isBudgetExhausted())
+			undo(0);
+		else if (solutionCount > 0)
+			System.arraycopy(firstSolution, 0, grid, 0, cells);
+
+		return solutionCount;
+	}
+
+	// Validates the grid and propagates the givens, ready for the search.
+	// Returns false if the grid is already known to be unsolvable
+	boolean prepare(int limit)
+	{
+		solutionLimit = limit;
+		solutionCount = 0;
+
+		if (stats == null)
+		{
+			if (!validateGrid())
+				return false;
+
+			initializePM();
+
+			return propagate();
+		}
+
+		long start = System.nanoTime();
+		boolean valid = validateGrid();
+		long validated = System.nanoTime();
+
+		stats.validationNanos = validated - start;
+
+		if (!valid)
+			return false;
+
+		initializePM();
+		valid = propagate();
+
+		stats.propagationNanos = System.nanoTime() - validated;
+
+		return valid;
+	}
+
+	// Places a number and propagates it, without a way back.
+	// Returns false if that makes the grid unsolvable
+	boolean tryNumber(int index, int number)
+	{
+		if (placeNumber(index, number) && propagate())
+			return true;
+
+		clearWorklist();
+		return false;
+	}
+
+	void setStop(CancellationToken stop)
+	{
+		this.stop = stop;
+	}
+
+	void setQueue(BranchQueue queue)
+	{
+		this.queue = queue;
+	}
+
+	// Makes the search spend the budget. Copies made after this spend what
+	// is left of it, each on their own
+	void setBudget(SolveBudget budget)
+	{
+		meter.start(budget);
+		budgeted = true;
+	}
+
+	// Makes this solver and the copies made after this spend one node limit
+	// between them, counted in the given counter
+	void shareNodes(AtomicLong counter)
+	{
+		meter.shareNodes(counter);
+	}
+
+	boolean isBudgetExhausted()
+	{
+		return budgeted && meter.isExhausted();
+	}
+
+	int getSolutionCount()
+	{
+		return solutionCount;
+	}
+
+	int[] getFirstSolution()
+	{
+		return firstSolution;
+	}
+
+	// Applies both eliminations until the worklist runs dry, and then the
+	// techniques until one of them removes a candidate and the singles can
+	// start again. Returns false if the grid turned out to be unsolvable
+	private boolean propagate()
+	{
+		int placed;
+		int eliminated;
+
+		while (true)
+		{
+			// Naked singles first, they are the cheapest to find
+			placed = simpleEliminate();
+
+			if (placed < 0)
+			{
+				clearWorklist();
+				return false;
+			}
+
+			if (stats != null)
+				stats.nakedSingles += placed;
+
+			placed = lessSimpleEliminate();
+
+			if (placed < 0)
+			{
+				clearWorklist();
+				return false;
+			}
+
+			if (stats != null)
+				stats.hiddenSingles += placed;
+
+			if (placed == 0)
+			{
+				if (techniques.length == 0)
+					return true;
+
+				eliminated = applyTechniques();
+
+				if (eliminated < 0)
+				{
+					clearWorklist();
+					return false;
+				}
+
+				if (eliminated == 0)
+					return true;
+			}
+		}
+	}
+
+	private void clearWorklist()
+	{
+		while (dirtyCount > 0)
+		{
+			dirtyCount--;
+			unitDirty[dirtyUnits[dirtyCount]] = false;
+		}
+
+		singlesCount = 0;
+	}
+
+	private void markDirty(int index)
+	{
+		int i;
+		int unit;
+
+		for (i = 0; i < 3; i++)
+		{
+			unit = cellUnits[index][i];
+
+			if (!unitDirty[unit])
+			{
+				unitDirty[unit] = true;
+				dirtyUnits[dirtyCount] = unit;
+				dirtyCount++;
+			}
+		}
+	}
+
+	// Checks that every number is in range and appears at most once per unit
+	boolean validateGrid()
+	{
+		int i, j;
+		int number;
+		int seen;
+		int[] unit;
+
+		if (grid.length != cells)
+			return false;
+
+		for (i = 0; i < cells; i++)
+			if (grid[i] < 0 || grid[i] > size)
+				return false;
+
+		for (i = 0; i < geometry.units; i++)
+		{
+			unit = unitCells[i];
+			seen = 0;
+
+			for (j = 0; j < size; j++)
+			{
+				number = grid[unit[j]];
+
+				if (number != 0)
+				{
+					if ((seen & (1 << (number - 1))) != 0)
+						return false;
+
+					seen |= 1 << (number - 1);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	// Finds the un-filled cell with the least possibilities.
+	// Returns -1 if all cells are filled
+	int leastPossibsCell()
+	{
+		int i;
+		int possibsCounter;
+		int leastPossibs = size + 1;
+		int leastPossibsIndex = -1;
+
+		for (i = 0; i < cells; i++)
+		{
+			if (grid[i] == 0)
+			{
+				possibsCounter = Integer.bitCount(candidates[i]);
+
+				if (possibsCounter < leastPossibs)
+				{
+					leastPossibs = possibsCounter;
+					leastPossibsIndex = i;
+				}
+			}
+		}
+
+		return leastPossibsIndex;
+	}
+
+	// Records a solution found by a search, including one done elsewhere on
+	// a copy of this solver. Returns true once the limit is reached
+	boolean addSolution(int[] solution)
+	{
+		solutionCount++;
+
+		if (solutionCount == 1)
+			System.arraycopy(solution, 0, firstSolution, 0, cells);
+
+		return solutionCount >= solutionLimit;
+	}
+
+	// Returns true when the search should stop, either because the solution
+	// limit was reached or because it was abandoned or ran out of budget.
+	// Depth first, with the guesses kept on the frame stack instead of the
+	// call stack, so deep searches on big boards cannot overflow it
+	boolean checkAndBranch()
+	{
+		// Number of guesses made above the current node
+		int depth = 0;
+		int frame, cell, possibs, number;
+		boolean failed;
+
+		while (true)
+		{
+			// The grid holds the propagated state of a node not seen before
+			if (stop != null && stop.isCancelled())
+				return true;
+
+			if (budgeted && !meter.spend())
+				return true;
+
+			if (queue != null && queue.isHungry())
+				shareBranch(depth);
+
+			if (stats != null)
+			{
+				stats.nodes++;
+
+				if (depth > stats.maxDepth)
+					stats.maxDepth = depth;
+			}
+
+			cell = leastPossibsCell();
+			failed = true;
+
+			// This means that all cells are filled and puzzle is solved
+			if (cell == -1)
+			{
+				if (addSolution(grid))
+					return true;
+			}
+			// Otherwise the puzzle is invalid if the cell has no candidate
+			else if (candidates[cell] != 0)
+			{
+				frameCells[depth] = cell;
+				frameMasks[depth] = candidates[cell];
+				frameCheckpoints[depth] = trailSize;
+				depth++;
+				failed = false;
+			}
+
+			// Find the next number to try in the deepest node with one left,
+			// rolling back the nodes that failed on the way
+			while (true)
+			{
+				if (failed)
+				{
+					if (depth == 0)
+						return false;
+
+					undo(frameCheckpoints[depth - 1]);
+
+					if (stats != null)
+						stats.backtracks++;
+				}
+
+				frame = depth - 1;
+				possibs = frameMasks[frame];
+
+				// Every number failed, so the node fails too
+				if (possibs == 0)
+				{
+					depth--;
+					failed = true;
+					continue;
+				}
+
+				number = Integer.numberOfTrailingZeros(possibs) + 1;
+				frameMasks[frame] = possibs & (possibs - 1);
+
+				// The child starts from this node's propagated state
+				if (placeNumber(frameCells[frame], number) && propagate())
+					break;
+
+				failed = true;
+			}
+		}
+	}
+
+	// Gives the queue the numbers not tried yet in the shallowest guess that
+	// has some left, which usually have the most work under them. They go as
+	// a copy of the node of that guess with its cell limited to those
+	// numbers, and this search goes on without them
+	private void shareBranch(int depth)
+	{
+		SudokuSolver branch;
+		int frame = 0;
+		int i, cell;
+
+		while (frame < depth && frameMasks[frame] == 0)
+			frame++;
+
+		if (frame == depth)
+			return;
+
+		branch = new SudokuSolver(this);
+
+		// Rolls the copy back to the node, as undo would
+		for (i = trailSize - 1; i >= frameCheckpoints[frame]; i--)
+		{
+			cell = trailCells[i];
+
+			if (cell < 0)
+			{
+				cell = -cell - 1;
+				branch.grid[cell] = 0;
+			}
+
+			branch.candidates[cell] = trailMasks[i];
+		}
+
+		branch.candidates[frameCells[frame]] = frameMasks[frame];
+		frameMasks[frame] = 0;
+
+		queue.add(branch);
+	}
+
+	// Rolls the grid and candidate masks back to an earlier trail size,
+	// dropping whatever a failed placement left on the worklist
+	private void undo(int checkpoint)
+	{
+		int cell;
+
+		clearWorklist();
+
+		while (trailSize > checkpoint)
+		{
+			trailSize--;
+			cell = trailCells[trailSize];
+
+			if (cell < 0)
+			{
+				cell = -cell - 1;
+				grid[cell] = 0;
+			}
+
+			candidates[cell] = trailMasks[trailSize];
+		}
+	}
+
+	// Removes candidates from an empty cell, recording the change on the trail.
+	// bits : one bit per number to remove, usually a single one
+	// Returns false if the cell has no candidates left
+	private boolean removeCandidate(int index, int bits)
+	{
+		int mask = candidates[index];
+
+		if ((mask & bits) == 0)
+			return true;
+
+		trailCells[trailSize] = index;
+		trailMasks[trailSize] = mask;
+		trailSize++;
+
+		mask &= ~bits;
+		candidates[index] = mask;
+		markDirty(index);
+
+		if (mask == 0)
+			return false;
+
+		// Exactly one bit left
+		if ((mask & (mask - 1)) == 0)
+		{
+			singles[singlesCount] = index;
+			singlesCount++;
+		}
+
+		return true;
+	}
+
+	// Places a number in the grid and updates the candidate masks accordingly.
+	// Returns false if this leaves some empty cell without candidates
+	private boolean placeNumber(int index, int number)
+	{
+		// Record the placement so it can be undone
+		trailCells[trailSize] = -index - 1;
+		trailMasks[trailSize] = candidates[index];
+		trailSize++;
+
+		// Place the number in the grid
+		grid[index] = number;
+
+		int i;
+		int peer;
+		int[] cellPeers = peers[index];
+		int bit = 1 << (number - 1);
+		boolean valid = true;
+
+		// Remove this number from the possibilities of each cell in the row,
+		// column and box
+		for (i = 0; i < cellPeers.length; i++)
+		{
+			peer = cellPeers[i];
+			if (grid[peer] == 0)
+				valid &= removeCandidate(peer, bit);
+		}
+
+		// Remove all other possibilities from this cell
+		candidates[index] = bit;
+		markDirty(index);
+
+		return valid;
+	}
+
+	void initializePM()
+	{
+		int i;
+
+		// A search that stopped early leaves its trail behind
+		trailSize = 0;
+
+		for (i = 0; i < cells; i++)
+			candidates[i] = geometry.allCandidates;
+
+		for (i = 0; i < cells; i++)
+			if (grid[i] != 0)
+				placeNumber(i, grid[i]);
+
+		// The givens are never undone
+		trailSize = 0;
+
+		// Everything has to be checked once
+		clearWorklist();
+
+		for (i = 0; i < geometry.units; i++)
+		{
+			unitDirty[i] = true;
+			dirtyUnits[i] = i;
+		}
+
+		dirtyCount = geometry.units;
+
+		for (i = 0; i < cells; i++)
+		{
+			if (grid[i] == 0 && Integer.bitCount(candidates[i]) == 1)
+			{
+				singles[singlesCount] = i;
+				singlesCount++;
+			}
+		}
+	}
+
+	// Fills the cells queued as having a single candidate.
+	// Returns the number of cells filled, or -1 if the grid is unsolvable
+	int simpleEliminate()
+	{
+		int counter = 0;
+		int index;
+
+		while (singlesCount > 0)
+		{
+			singlesCount--;
+			index = singles[singlesCount];
+
+			// Already filled as a hidden single
+			if (grid[index] != 0)
+				continue;
+
+			if (!placeNumber(index, Integer.numberOfTrailingZeros(candidates[index]) + 1))
+				return -1;
+			counter++;
+		}
+		
+		return counter;
+	}
+
+	// Places every number that fits in only one cell of the given unit.
+	// seen : numbers possible in at least one empty cell
+	// twice : numbers possible in at least two empty cells
+	// Returns the number of cells filled, or -1 if the unit cannot be completed
+	private int placeHiddenSingles(int[] unit)
+	{
+		int counter = 0;
+		int seen = 0;
+		int twice = 0;
+		int placed = 0;
+		int hidden;
+		int bit;
+		int i;
+
+		for (i = 0; i < size; i++)
+		{
+			if (grid[unit[i]] == 0)
+			{
+				twice |= seen & candidates[unit[i]];
+				seen |= candidates[unit[i]];
+			}
+			else
+				placed |= candidates[unit[i]];
+		}
+
+		// Some number has nowhere left to go
+		if ((seen | placed) != geometry.allCandidates)
+			return -1;
+
+		hidden = seen & ~twice;
+
+		while (hidden != 0)
+		{
+			bit = hidden & -hidden;
+			hidden &= hidden - 1;
+
+			for (i = 0; i < size; i++)
+				if (grid[unit[i]] == 0 && (candidates[unit[i]] & bit) != 0)
+					break;
+
+			// The only cell for this number was just given another one
+			if (i == size)
+				return -1;
+
+			if (!placeNumber(unit[i], Integer.numberOfTrailingZeros(bit) + 1))
+				return -1;
+			counter++;
+		}
+
+		return counter;
+	}
+
+	// Checks queued units for hidden singles, stopping at the first unit that
+	// fills anything so the new naked singles are handled first.
+	// Returns the number of cells filled, or -1 if the grid is unsolvable
+	int lessSimpleEliminate()
+	{
+		int placed;
+		int unit;
+
+		while (dirtyCount > 0)
+		{
+			dirtyCount--;
+			unit = dirtyUnits[dirtyCount];
+			unitDirty[unit] = false;
+
+			placed = placeHiddenSingles(unitCells[unit]);
+			if (placed != 0)
+				return placed;
+		}
+
+		return 0;
+	}
+
+	// Tries the techniques in order and stops at the first one that removes
+	// anything. Returns the number of cells that lost candidates, or -1 if
+	// the grid is unsolvable
+	private int applyTechniques()
+	{
+		int eliminated = 0;
+		long start;
+		int i;
+
+		for (i = 0; i < techniques.length && eliminated == 0; i++)
+		{
+			if (stats == null)
+				eliminated = applyTechnique(techniques[i]);
+			else
+			{
+				start = System.nanoTime();
+				eliminated = applyTechnique(techniques[i]);
+				stats.techniqueNanos[techniques[i].ordinal()] += System.nanoTime() - start;
+
+				if (eliminated > 0)
+					stats.eliminations[techniques[i].ordinal()] += eliminated;
+			}
+		}
+
+		return eliminated;
+	}
+
+	// Applies one technique to every unit it concerns.
+	// Returns the number of cells that lost candidates, or -1 if the grid
+	// is unsolvable
+	private int applyTechnique(Technique technique)
+	{
+		int eliminated = 0;
+		int removed;
+		int unit;
+
+		for (unit = 0; unit < geometry.units; unit++)
+		{
+			switch (technique)
+			{
+			case POINTING:
+				// Boxes against the rows, then the columns
+				if (unit < 2 * size)
+					continue;
+
+				removed = eliminateIntersections(unit, 0);
+
+				if (removed >= 0)
+				{
+					eliminated += removed;
+					removed = eliminateIntersections(unit, 1);
+				}
+				break;
+			case BOX_LINE:
+				// Rows and columns against the boxes
+				if (unit >= 2 * size)
+					continue;
+
+				removed = eliminateIntersections(unit, 2);
+				break;
+			case NAKED_PAIR:
+				removed = eliminateNakedSubsets(unitCells[unit], 2);
+				break;
+			case HIDDEN_PAIR:
+				removed = eliminateHiddenSubsets(unitCells[unit], 2);
+				break;
+			case NAKED_TRIPLE:
+				removed = eliminateNakedSubsets(unitCells[unit], 3);
+				break;
+			default:
+				removed = eliminateHiddenSubsets(unitCells[unit], 3);
+				break;
+			}
+
+			if (removed < 0)
+				return -1;
+
+			eliminated += removed;
+		}
+
+		return eliminated;
+	}
+
+	// Splits a unit into its segments along the units of the crossing kind
+	// (0 rows, 1 columns, 2 boxes). A number whose candidates in the unit all
+	// lie in one segment is removed from the rest of the crossing unit.
+	// Returns the number of cells that lost candidates, or -1 if the grid
+	// is unsolvable
+	private int eliminateIntersections(int unit, int crossKind)
+	{
+		int[] unitCellList = unitCells[unit];
+		int kind = unit / size;
+		int crossCount = 0;
+		int eliminated = 0;
+		int seen = 0;
+		int twice = 0;
+		int only;
+		int cross;
+		int cell;
+		int i, j;
+
+		for (i = 0; i < size; i++)
+		{
+			cell = unitCellList[i];
+
+			if (grid[cell] == 0)
+			{
+				cross = cellUnits[cell][crossKind];
+
+				// An empty cell always has a candidate, so a cleared mask
+				// means the segment was not seen yet
+				if (crossMasks[cross] == 0)
+				{
+					crossUnits[crossCount] = cross;
+					crossCount++;
+				}
+
+				crossMasks[cross] |= candidates[cell];
+			}
+		}
+
+		for (i = 0; i < crossCount; i++)
+		{
+			segmentMasks[i] = crossMasks[crossUnits[i]];
+			crossMasks[crossUnits[i]] = 0;
+
+			twice |= seen & segmentMasks[i];
+			seen |= segmentMasks[i];
+		}
+
+		for (i = 0; i < crossCount; i++)
+		{
+			only = segmentMasks[i] & ~twice;
+
+			if (only == 0)
+				continue;
+
+			for (j = 0; j < size; j++)
+			{
+				cell = unitCells[crossUnits[i]][j];
+
+				if (grid[cell] == 0 && cellUnits[cell][kind] != unit && (candidates[cell] & only) != 0)
+				{
+					eliminated++;
+
+					if (!removeCandidate(cell, only))
+						return -1;
+				}
+			}
+		}
+
+		return eliminated;
+	}
+
+	// Finds groups of count cells whose candidates are among count numbers,
+	// and removes those numbers from the other cells of the unit.
+	// Returns the number of cells that lost candidates, or -1 if the grid
+	// is unsolvable
+	private int eliminateNakedSubsets(int[] unit, int count)
+	{
+		int cellCount = 0;
+		int eliminated = 0;
+		int removed;
+		int union;
+		int i, j, k;
+
+		for (i = 0; i < size; i++)
+		{
+			if (grid[unit[i]] == 0 && Integer.bitCount(candidates[unit[i]]) <= count)
+			{
+				subsetCells[cellCount] = unit[i];
+				cellCount++;
+			}
+		}
+
+		for (i = 0; i < cellCount; i++)
+		{
+			for (j = i + 1; j < cellCount; j++)
+			{
+				union = candidates[subsetCells[i]] | candidates[subsetCells[j]];
+
+				if (count == 2)
+				{
+					if (Integer.bitCount(union) == 2)
+					{
+						removed = removeFromUnit(unit, union, subsetCells[i], subsetCells[j], -1);
+						if (removed < 0)
+							return -1;
+						eliminated += removed;
+					}
+
+					continue;
+				}
+
+				for (k = j + 1; k < cellCount; k++)
+				{
+					if (Integer.bitCount(union | candidates[subsetCells[k]]) == 3)
+					{
+						removed = removeFromUnit(unit, union | candidates[subsetCells[k]],
+								subsetCells[i], subsetCells[j], subsetCells[k]);
+						if (removed < 0)
+							return -1;
+						eliminated += removed;
+					}
+				}
+			}
+		}
+
+		return eliminated;
+	}
+
+	// Removes the numbers of mask from every empty cell of the unit but the
+	// given ones. Returns the number of cells changed, or -1 if a cell is
+	// left without candidates
+	private int removeFromUnit(int[] unit, int mask, int keep1, int keep2, int keep3)
+	{
+		int eliminated = 0;
+		int cell;
+		int i;
+
+		for (i = 0; i < size; i++)
+		{
+			cell = unit[i];
+
+			if (grid[cell] == 0 && cell != keep1 && cell != keep2 && cell != keep3
+					&& (candidates[cell] & mask) != 0)
+			{
+				eliminated++;
+
+				if (!removeCandidate(cell, mask))
+					return -1;
+			}
+		}
+
+		return eliminated;
+	}
+
+	// Finds groups of count numbers that fit in only count cells of the unit,
+	// and removes every other candidate from those cells.
+	// positions : for each number, the positions in the unit it fits in
+	// Returns the number of cells that lost candidates, or -1 if the grid
+	// is unsolvable
+	private int eliminateHiddenSubsets(int[] unit, int count)
+	{
+		int numberCount = 0;
+		int eliminated = 0;
+		int removed;
+		int union;
+		int mask;
+		int number;
+		int i, j, k;
+
+		for (i = 0; i < size; i++)
+			positions[i] = 0;
+
+		for (i = 0; i < size; i++)
+		{
+			if (grid[unit[i]] == 0)
+			{
+				mask = candidates[unit[i]];
+
+				while (mask != 0)
+				{
+					number = Integer.numberOfTrailingZeros(mask);
+					mask &= mask - 1;
+					positions[number] |= 1 << i;
+				}
+			}
+		}
+
+		// The positions can only have shrunk since they were gathered, so a
+		// group found from them is still a group
+		for (i = 0; i < size; i++)
+		{
+			j = Integer.bitCount(positions[i]);
+
+			if (j >= 2 && j <= count)
+			{
+				subsetNumbers[numberCount] = i;
+				numberCount++;
+			}
+		}
+
+		for (i = 0; i < numberCount; i++)
+		{
+			for (j = i + 1; j < numberCount; j++)
+			{
+				union = positions[subsetNumbers[i]] | positions[subsetNumbers[j]];
+				mask = (1 << subsetNumbers[i]) | (1 << subsetNumbers[j]);
+
+				if (count == 2)
+				{
+					if (Integer.bitCount(union) == 2)
+					{
+						removed = keepInPositions(unit, union, mask);
+						if (removed < 0)
+							return -1;
+						eliminated += removed;
+					}
+
+					continue;
+				}
+
+				for (k = j + 1; k < numberCount; k++)
+				{
+					if (Integer.bitCount(union | positions[subsetNumbers[k]]) == 3)
+					{
+						removed = keepInPositions(unit, union | positions[subsetNumbers[k]],
+								mask | (1 << subsetNumbers[k]));
+						if (removed < 0)
+							return -1;
+						eliminated += removed;
+					}
+				}
+			}
+		}
+
+		return eliminated;
+	}
+
+	// Removes every number but those of mask from the cells at the given
+	// positions of the unit. Returns the number of cells changed, or -1 if a
+	// cell is left without candidates
+	private int keepInPositions(int[] unit, int positionMask, int mask)
+	{
+		int eliminated = 0;
+		int cell;
+		int i;
+
+		while (positionMask != 0)
+		{
+			i = Integer.numberOfTrailingZeros(positionMask);
+			positionMask &= positionMask - 1;
+			cell = unit[i];
+
+			if (grid[cell] == 0 && (candidates[cell] & ~mask) != 0)
+			{
+				eliminated++;
+
+				if (!removeCandidate(cell, geometry.allCandidates & ~mask))
+					return -1;
+			}
+		}
+
+		return eliminated;
+	}
 }
\ No newline at end of file
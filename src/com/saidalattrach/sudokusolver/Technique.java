@@ -0,0 +1,29 @@
+package com.saidalattrach.sudokusolver;
+
+// Eliminations SudokuSolver can apply when naked and hidden singles stall,
+// before it has to guess. They are declared from the cheapest to the most
+// expensive, which is the order the solver tries them in
+public enum Technique
+{
+	// A number whose candidates in a box all lie in one row or column is
+	// removed from the rest of that row or column
+	POINTING,
+
+	// A number whose candidates in a row or column all lie in one box is
+	// removed from the rest of that box
+	BOX_LINE,
+
+	// Two cells of a unit with the same two candidates take those numbers
+	// from the other cells of the unit
+	NAKED_PAIR,
+
+	// Two numbers that fit in only the same two cells of a unit leave those
+	// cells without any other candidate
+	HIDDEN_PAIR,
+
+	// Three cells of a unit whose candidates are among the same three numbers
+	NAKED_TRIPLE,
+
+	// Three numbers that fit in only the same three cells of a unit
+	HIDDEN_TRIPLE
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.saidalattrach.sudokusolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+// Fixed set of daemon threads that runs batches of tasks and waits for them.
+// Used instead of a ForkJoinPool, which Android only has from API 21
+final class WorkerPool
+{
+	private ExecutorService executor;
+	private int threads;
+
+	WorkerPool(final String name, int threads)
+	{
+		this.threads = threads;
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	int getThreads()
+	{
+		return threads;
+	}
+
+	// Returns once every task is done. If a task threw, its exception is
+	// thrown again here, after the other tasks are done too. Must not be
+	// called from one of the pool's own threads
+	void runAll(List<Runnable> tasks)
+	{
+		List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+		Throwable failure = null;
+		boolean interrupted = false;
+		int i;
+
+		for (i = 0; i < tasks.size(); i++)
+			futures.add(executor.submit(tasks.get(i)));
+
+		// The tasks write into arrays the caller reads afterwards, so this
+		// waits for all of them even when interrupted
+		for (i = 0; i < futures.size(); i++)
+		{
+			while (true)
+			{
+				try
+				{
+					futures.get(i).get();
+					break;
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+				catch (ExecutionException e)
+				{
+					if (failure == null)
+						failure = e.getCause();
+					break;
+				}
+			}
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+
+		if (failure instanceof Error)
+			throw (Error) failure;
+
+		if (failure != null)
+			throw new RuntimeException(failure);
+	}
+
+	void shutdown()
+	{
+		executor.shutdown();
+	}
+}
\ No newline at end of file